@@ -0,0 +1,131 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.ConfigStore;
+import me.diffusehyperion.gamemaster.Utility.ConfigEditor;
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and editing server.properties: the old read-the-file-every-time methods against {@link ConfigStore} and {@link ConfigEditor}.
+ * <p>
+ * The edits swap a value back and forth, so every call really changes the file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigBenchmark {
+
+    private static final String PROPERTIES = "#Minecraft server properties\n"
+            + "spawn-protection=16\n"
+            + "max-tick-time=60000\n"
+            + "query.port=25565\n"
+            + "generator-settings=\n"
+            + "force-gamemode=false\n"
+            + "allow-nether=true\n"
+            + "enforce-whitelist=false\n"
+            + "gamemode=survival\n"
+            + "broadcast-console-to-ops=true\n"
+            + "enable-query=false\n"
+            + "player-idle-timeout=0\n"
+            + "difficulty=easy\n"
+            + "spawn-monsters=true\n"
+            + "broadcast-rcon-to-ops=true\n"
+            + "op-permission-level=4\n"
+            + "pvp=true\n"
+            + "snooper-enabled=true\n"
+            + "level-type=default\n"
+            + "hardcore=false\n"
+            + "enable-command-block=false\n"
+            + "max-players=20\n"
+            + "network-compression-threshold=256\n"
+            + "resource-pack-sha1=\n"
+            + "max-world-size=29999984\n"
+            + "server-port=25565\n"
+            + "server-ip=\n"
+            + "spawn-npcs=true\n"
+            + "allow-flight=false\n"
+            + "level-name=world\n"
+            + "view-distance=10\n"
+            + "resource-pack=\n"
+            + "spawn-animals=true\n"
+            + "white-list=false\n"
+            + "generate-structures=true\n"
+            + "online-mode=true\n"
+            + "max-build-height=256\n"
+            + "level-seed=\n"
+            + "prevent-proxy-connections=false\n"
+            + "use-native-transport=true\n"
+            + "motd=A Minecraft Server\n"
+            + "enable-rcon=false\n";
+
+    private File folder;
+    private File file;
+    private ConfigStore store;
+    private boolean flag = false;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("gamemaster-config").toFile();
+        file = new File(folder, "server.properties");
+        FileIO.write(file.toPath(), PROPERTIES);
+        store = ConfigStore.of(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ConfigStore.stopWatching();
+        file.delete();
+        folder.delete();
+    }
+
+    private String toggle() {
+        flag = !flag;
+        return String.valueOf(flag);
+    }
+
+    @Benchmark
+    public String legacyRead() throws IOException {
+        return Legacy.readServerProperties(file, "level-name");
+    }
+
+    @Benchmark
+    public String storeRead() throws IOException, InvalidConfigurationException {
+        return store.get("level-name");
+    }
+
+    @Benchmark
+    public String editorParseAndRead() {
+        return ConfigEditor.properties(PROPERTIES).get("level-name");
+    }
+
+    @Benchmark
+    public boolean legacyEdit() throws IOException {
+        String value = toggle();
+        return Legacy.checkAndEditServerProperties(file, "allow-nether", value, "allow-nether=" + !flag, "allow-nether=" + value);
+    }
+
+    @Benchmark
+    public boolean storeEdit() throws IOException, InvalidConfigurationException {
+        return store.set("allow-nether", toggle());
+    }
+}
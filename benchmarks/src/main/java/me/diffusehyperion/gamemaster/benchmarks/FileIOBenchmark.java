@@ -0,0 +1,91 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reading and writing config-like text files of a few megabytes: the old GameServer file methods against {@link FileIO}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileIOBenchmark {
+
+    @Param({"1", "8"})
+    public int megabytes;
+
+    private Path folder;
+    private Path path;
+    private File file;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("gamemaster-fileio");
+        path = folder.resolve("server.properties");
+        file = path.toFile();
+        StringBuilder builder = new StringBuilder(megabytes << 20);
+        int line = 0;
+        while (builder.length() < megabytes << 20) {
+            builder.append("some-setting-").append(line).append('=').append(line * 31L).append('\n');
+            line++;
+        }
+        content = builder.toString();
+        FileIO.write(path, content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public String legacyRead() {
+        return Legacy.readFile(file);
+    }
+
+    @Benchmark
+    public String fileIORead() throws IOException {
+        return FileIO.read(path);
+    }
+
+    @Benchmark
+    public File legacyWrite() throws IOException {
+        Legacy.writeFile(content, file);
+        return file;
+    }
+
+    @Benchmark
+    public Path fileIOWrite() throws IOException {
+        FileIO.write(path, content);
+        return path;
+    }
+
+    @Benchmark
+    public boolean fileIOTransformUnchanged() throws IOException {
+        return FileIO.transformLines(path, FileIO.DEFAULT_CHARSET, UnaryOperator.identity());
+    }
+}
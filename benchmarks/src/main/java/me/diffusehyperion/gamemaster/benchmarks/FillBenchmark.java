@@ -0,0 +1,87 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.FillTask;
+import me.diffusehyperion.gamemaster.Components.GameWorld;
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeWorld;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills a cube of blocks, with the old loop and with {@link GameWorld#fillBlocks(Location, Location, Material)}.
+ * <p>
+ * The "changed" benchmarks swap between two block types, so every block changes every time. The "unchanged" ones fill with what is already there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillBenchmark {
+
+    @Param({"16", "48"})
+    public int size;
+
+    private FakeWorld world;
+    private Location loc1;
+    private Location loc2;
+    private boolean stone = false;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = FakeServer.get().createWorld("fill-" + size);
+        loc1 = new Location(world.getWorld(), 0, 0, 0);
+        loc2 = new Location(world.getWorld(), size - 1, size - 1, size - 1);
+        Legacy.fillBlocks(loc1, loc2, Material.STONE);
+    }
+
+    private Material swap() {
+        stone = !stone;
+        return stone ? Material.DIRT : Material.STONE;
+    }
+
+    @Benchmark
+    public long legacyChanged() {
+        Legacy.fillBlocks(loc1, loc2, swap());
+        return world.getChanges();
+    }
+
+    @Benchmark
+    public long fillChanged() {
+        GameWorld.fillBlocks(loc1, loc2, swap());
+        return world.getChanges();
+    }
+
+    @Benchmark
+    public long legacyUnchanged() {
+        Legacy.fillBlocks(loc1, loc2, Material.STONE);
+        return world.getChanges();
+    }
+
+    @Benchmark
+    public long fillUnchanged() {
+        GameWorld.fillBlocks(loc1, loc2, Material.STONE);
+        return world.getChanges();
+    }
+
+    @Benchmark
+    public long fillHollow() {
+        return new FillTask(loc1, loc2, swap(), null, FillTask.FillMode.HOLLOW, BudgetedTask.DEFAULT_BUDGET_MILLIS).runNow().getBlocksChanged();
+    }
+}
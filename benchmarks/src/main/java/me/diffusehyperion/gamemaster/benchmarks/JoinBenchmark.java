@@ -0,0 +1,95 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Events.FirstPlayerJoinEvent.FirstPlayerJoinEventHandler;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.RegisteredListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every join after the first: the old listener, which kept checking its flag, against {@link FirstPlayerJoinEventHandler},
+ * which stops listening once the first player has joined.
+ * <p>
+ * Both dispatch through the plugin manager, like the server does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinBenchmark {
+
+    public abstract static class Joins {
+        Player player;
+
+        void setup(Listener listener, EventExecutor executor) {
+            FakeServer server = FakeServer.get();
+            server.reset();
+            player = server.addPlayer("Player", server.createWorld("join").getWorld()).getPlayer();
+            HandlerList.unregisterAll();
+            Legacy.playerJoined = false;
+            FirstPlayerJoinEventHandler.playerJoined = false;
+            PlayerJoinEvent.getHandlerList().register(new RegisteredListener(listener, executor, EventPriority.NORMAL, server.getPlugin(), false));
+            // the first join is not what is measured
+            join();
+        }
+
+        PlayerJoinEvent join() {
+            PlayerJoinEvent event = new PlayerJoinEvent(player, "Player joined the game");
+            Bukkit.getPluginManager().callEvent(event);
+            return event;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            HandlerList.unregisterAll();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LegacyJoins extends Joins {
+        @Setup(Level.Trial)
+        public void setup() {
+            setup(new Listener() {
+            }, (listener, event) -> Legacy.playerJoined((PlayerJoinEvent) event));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class HandlerJoins extends Joins {
+        @Setup(Level.Trial)
+        public void setup() {
+            FirstPlayerJoinEventHandler handler = new FirstPlayerJoinEventHandler();
+            setup(handler, (listener, event) -> ((FirstPlayerJoinEventHandler) listener).playerJoined((PlayerJoinEvent) event));
+        }
+    }
+
+    @Benchmark
+    public PlayerJoinEvent legacyJoin(LegacyJoins joins) {
+        return joins.join();
+    }
+
+    @Benchmark
+    public PlayerJoinEvent handlerJoin(HandlerJoins joins) {
+        return joins.join();
+    }
+}
@@ -0,0 +1,176 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Events.FirstPlayerJoinEvent.FirstPlayerJoinEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * How GameMaster 1.0.3.1 did things before the hot paths were reworked, kept here as the baseline the benchmarks compare against.
+ * <p>
+ * The code is copied as it was, apart from taking its inputs as arguments instead of reading them from the server.
+ */
+final class Legacy {
+
+    private Legacy() {
+    }
+
+    /**
+     * GameWorld.fillBlocks: every block is set, even if it already has the right type.
+     */
+    static void fillBlocks(Location loc1, Location loc2, Material blocktype) {
+        World world = loc1.getWorld();
+        int startX = Math.min(loc1.getBlockX(), loc2.getBlockX());
+        int endX = Math.max(loc1.getBlockX(), loc2.getBlockX());
+        int startY = Math.min(loc1.getBlockY(), loc2.getBlockY());
+        int endY = Math.max(loc1.getBlockY(), loc2.getBlockY());
+        int startZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
+        int endZ = Math.max(loc1.getBlockZ(), loc2.getBlockZ());
+        for (int y = startY; y <= endY; y++) {
+            for (int z = startZ; z <= endZ; z++) {
+                for (int x = startX; x <= endX; x++) {
+                    world.getBlockAt(x, y, z).setType(blocktype);
+                }
+            }
+        }
+    }
+
+    /**
+     * The body of the BukkitRunnable GamePlayer.customTimer scheduled for every timer, every 2 ticks.
+     */
+    static final class Timer implements Runnable {
+        private final BossBar bossbar;
+        private final int duration;
+        private final String title;
+        private final Map<String, String> replaceList;
+        private BigDecimal timer;
+
+        Timer(BossBar bossbar, int duration, String title, Map<String, String> replaceList) {
+            this.bossbar = bossbar;
+            this.duration = duration;
+            this.title = title;
+            this.replaceList = replaceList;
+            this.timer = BigDecimal.valueOf(duration);
+        }
+
+        @Override
+        public void run() {
+            bossbar.setProgress(timer.divide(BigDecimal.valueOf(duration), 5, RoundingMode.HALF_EVEN).doubleValue());
+
+            List<String> list = new ArrayList<>();
+            for (Player pl : bossbar.getPlayers()) {
+                list.add(pl.getDisplayName());
+            }
+            String tempTitle = replaceTitle(title, timer.doubleValue(), duration - timer.doubleValue(), list);
+            bossbar.setTitle(replaceList == null ? tempTitle : customReplaceTitle(tempTitle, replaceList));
+
+            timer = timer.subtract(BigDecimal.valueOf(0.1));
+            if (timer.doubleValue() <= 0) {
+                // the benchmark keeps timers running forever, instead of removing the bossbar and cancelling
+                timer = BigDecimal.valueOf(duration);
+            }
+        }
+    }
+
+    /**
+     * GamePlayer.bossbarReplaceTitle.
+     */
+    static String replaceTitle(String title, Double timeLeft, Double timeElapsed, List<String> playerList) {
+        String replacementTitle = title;
+        replacementTitle = replacementTitle.replace("%time_left%", String.valueOf(timeLeft));
+        replacementTitle = replacementTitle.replace("%time_elapsed%", String.valueOf(timeElapsed));
+        replacementTitle = replacementTitle.replace("%players_shown%", String.join(", ", playerList));
+        return replacementTitle;
+    }
+
+    /**
+     * GamePlayer.customBossbarReplaceTitle.
+     */
+    static String customReplaceTitle(String title, Map<String, String> replaceList) {
+        String replacementTitle = title;
+        for (String s : replaceList.keySet()) {
+            replacementTitle = replacementTitle.replace(s, replaceList.get(s));
+        }
+        return replacementTitle;
+    }
+
+    /**
+     * GameServer.readServerProperties: the file is read and parsed on every call.
+     */
+    static String readServerProperties(File propertiesFile, String propertyName) throws IOException {
+        FileInputStream stream = new FileInputStream(propertiesFile);
+        Properties properties = new Properties();
+        properties.load(stream);
+        return properties.getProperty(propertyName);
+    }
+
+    /**
+     * GameServer.checkAndEditServerProperties: a regex over the whole file, then the file is written again.
+     */
+    static boolean checkAndEditServerProperties(File propertiesFile, String propertyToCheck, String correctConfig, String oldContent, String newContent) throws IOException {
+        if (!correctConfig.equals(readServerProperties(propertiesFile, propertyToCheck))) {
+            String newcontent = readFile(propertiesFile).replaceAll(oldContent, newContent);
+            writeFile(newcontent, propertiesFile);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * GameServer.readFile: the platform charset, and every line ending turned into the system's.
+     */
+    static String readFile(File file) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            BufferedReader br = new BufferedReader(new FileReader(file));
+            String line = br.readLine();
+            while (line != null) {
+                builder.append(line).append(System.lineSeparator());
+                line = br.readLine();
+            }
+            br.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * GameServer.writeFile: written in place, with the platform charset.
+     */
+    static void writeFile(String content, File file) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+    }
+
+    /**
+     * FirstPlayerJoinEventHandler: ran on every join, and always built and fired the event the first time.
+     */
+    static boolean playerJoined = false;
+
+    static void playerJoined(PlayerJoinEvent e) {
+        if (!playerJoined) {
+            playerJoined = true;
+            FirstPlayerJoinEvent event = new FirstPlayerJoinEvent(e.getPlayer(), e.getJoinMessage());
+            Bukkit.getPluginManager().callEvent(event);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link Metrics} adds to the code it measures, next to a bare System.nanoTime call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final Metrics.Counter COUNTER = Metrics.counter("benchmark.counter");
+    private static final Metrics.Histogram HISTOGRAM = Metrics.histogram("benchmark.histogram");
+    private static final Metrics.Timer TIMER = Metrics.timer("benchmark.timer");
+
+    /**
+     * Turns recording off for the benchmarks that use it.
+     */
+    @State(Scope.Thread)
+    public static class Disabled {
+        @Setup(Level.Trial)
+        public void disable() {
+            Metrics.setEnabled(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void enable() {
+            Metrics.setEnabled(true);
+        }
+    }
+
+    private long value = 0;
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void counterIncrement() {
+        COUNTER.increment();
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        HISTOGRAM.record(value++ & 0xFFFF);
+    }
+
+    @Benchmark
+    public void timerStartStop() {
+        TIMER.stop(TIMER.start());
+    }
+
+    @Benchmark
+    public void timerStartStopDisabled(Disabled disabled) {
+        TIMER.stop(TIMER.start());
+    }
+}
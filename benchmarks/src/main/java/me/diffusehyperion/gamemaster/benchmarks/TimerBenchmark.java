@@ -0,0 +1,107 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.GamePlayer;
+import me.diffusehyperion.gamemaster.Components.TimerHandle;
+import me.diffusehyperion.gamemaster.Components.TimerScheduler;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakePlayer;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarFlag;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of every running bossbar timer: the old task per timer against one pass of the {@link TimerScheduler}.
+ * <p>
+ * Each timer is shown to a few players and has a custom placeholder, and lasts long enough to never finish during the run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimerBenchmark {
+
+    private static final String TITLE = "Time left: %time_left% | Elapsed: %time_elapsed% | Kills: {kills} | %players_shown%";
+    private static final int DURATION = 1_000_000;
+    private static final int PLAYERS = 4;
+
+    @Param({"10", "100"})
+    public int timers;
+
+    private FakeServer server;
+    private final List<Legacy.Timer> legacyTimers = new ArrayList<>();
+    private final List<TimerHandle> handles = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        server = FakeServer.get();
+        server.reset();
+        World world = server.createWorld("timers").getWorld();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            FakePlayer player = server.addPlayer("Player" + i, world);
+            players.add(player.getPlayer());
+        }
+        for (int i = 0; i < timers; i++) {
+            HashMap<String, String> replaceList = new HashMap<>();
+            replaceList.put("{kills}", String.valueOf(i));
+
+            BossBar legacyBar = Bukkit.createBossBar(TITLE, BarColor.RED, BarStyle.SOLID, BarFlag.PLAY_BOSS_MUSIC);
+            for (Player player : players) {
+                legacyBar.addPlayer(player);
+            }
+            legacyTimers.add(new Legacy.Timer(legacyBar, DURATION, TITLE, replaceList));
+
+            TimerHandle handle = GamePlayer.timerHandle(DURATION, TITLE, BarColor.RED, BarStyle.SOLID, replaceList, () -> {
+            });
+            for (Player player : players) {
+                GamePlayer.addToBossbar(handle.getBossbar(), player);
+            }
+            handles.add(handle);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TimerScheduler.cancelAll();
+        server.reset();
+    }
+
+    @Benchmark
+    public int legacyTimerTasks() {
+        for (Legacy.Timer timer : legacyTimers) {
+            timer.run();
+        }
+        return legacyTimers.size();
+    }
+
+    @Benchmark
+    public long schedulerPass() {
+        // one pass every PERIOD ticks, plus the bossbar flush it schedules for the tick after
+        server.getScheduler().tick(TimerScheduler.PERIOD);
+        return TimerScheduler.getCurrentTick();
+    }
+}
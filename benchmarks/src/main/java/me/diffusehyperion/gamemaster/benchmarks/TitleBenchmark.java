@@ -0,0 +1,76 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.TitleTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing a timer's title: the old chain of String.replace calls against a compiled {@link TitleTemplate}.
+ * <p>
+ * Time moves on by one update (2 ticks) every call, as it would on a server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleBenchmark {
+
+    private static final String TITLE = "Time left: %time_left% | Elapsed: %time_elapsed% | Kills: {kills} | %players_shown%";
+    private static final long DURATION_TICKS = 20L * 60 * 60;
+
+    private final HashMap<String, String> replaceList = new HashMap<>();
+    private final List<String> players = Arrays.asList("Alice", "Bob", "Charlie", "Dave");
+    private final String playersShown = String.join(", ", players);
+    private final StringBuilder out = new StringBuilder();
+    private TitleTemplate template;
+    private long elapsed = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        replaceList.put("{kills}", "3");
+        template = TitleTemplate.compile(TITLE, replaceList.keySet());
+    }
+
+    private long advance() {
+        elapsed = (elapsed + 2) % DURATION_TICKS;
+        return elapsed;
+    }
+
+    @Benchmark
+    public String legacyReplace() {
+        long ticks = advance();
+        double left = (DURATION_TICKS - ticks) / 20D;
+        String title = Legacy.replaceTitle(TITLE, left, ticks / 20D, players);
+        return Legacy.customReplaceTitle(title, replaceList);
+    }
+
+    @Benchmark
+    public StringBuilder templateRender() {
+        long ticks = advance();
+        template.render(out, DURATION_TICKS - ticks, ticks, playersShown, replaceList);
+        return out;
+    }
+
+    @Benchmark
+    public String templateRenderToString() {
+        long ticks = advance();
+        template.render(out, DURATION_TICKS - ticks, ticks, playersShown, replaceList);
+        return out.toString();
+    }
+}
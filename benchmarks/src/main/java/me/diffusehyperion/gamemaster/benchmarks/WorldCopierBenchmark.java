@@ -0,0 +1,97 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Utility.WorldCopier;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying a world template: commons-io, which the old cloneWorld used, against {@link WorldCopier},
+ * with and without linking region files.
+ * <p>
+ * The template is made up of random region files, plus the small files a world folder has.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class WorldCopierBenchmark {
+
+    private static final int REGION_BYTES = 4 << 20;
+
+    @Param({"4", "16"})
+    public int regions;
+
+    private Path folder;
+    private Path template;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("gamemaster-copy");
+        template = folder.resolve("template");
+        Path region = Files.createDirectories(template.resolve("region"));
+        Files.createDirectories(template.resolve("data"));
+        Random random = new Random(regions);
+        byte[] bytes = new byte[REGION_BYTES];
+        int side = (int) Math.ceil(Math.sqrt(regions));
+        for (int i = 0; i < regions; i++) {
+            random.nextBytes(bytes);
+            Files.write(region.resolve("r." + (i % side) + "." + (i / side) + ".mca"), bytes);
+        }
+        byte[] small = new byte[1024];
+        random.nextBytes(small);
+        Files.write(template.resolve("level.dat"), small);
+        Files.write(template.resolve("uid.dat"), new byte[16]);
+        Files.write(template.resolve("session.lock"), new byte[8]);
+        Files.write(template.resolve("data").resolve("villages.dat"), small);
+        target = folder.resolve("copy");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteCopy() throws IOException {
+        FileUtils.deleteDirectory(target.toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder.toFile());
+    }
+
+    @Benchmark
+    public File legacyCopy() throws IOException {
+        File copy = target.toFile();
+        FileUtils.copyDirectory(template.toFile(), copy);
+        return copy;
+    }
+
+    @Benchmark
+    public WorldCopier.Result copierCopy() throws IOException {
+        return WorldCopier.copy(template, target, false);
+    }
+
+    @Benchmark
+    public WorldCopier.Result copierLinkRegions() throws IOException {
+        return WorldCopier.copy(template, target, true);
+    }
+}
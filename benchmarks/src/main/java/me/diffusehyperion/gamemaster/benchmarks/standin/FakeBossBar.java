@@ -0,0 +1,88 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bossbar that counts the updates a real one would send to its players.
+ */
+public class FakeBossBar {
+
+    private final BossBar bossbar;
+    private final List<Player> players = new ArrayList<>();
+    private String title;
+    private double progress = 1;
+    private boolean visible = true;
+    private long progressUpdates = 0;
+    private long titleUpdates = 0;
+
+    FakeBossBar(String title, BarColor color, BarStyle style) {
+        this.title = title;
+        this.bossbar = StandIns.proxy(BossBar.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getTitle":
+                    return this.title;
+                case "setTitle":
+                    this.title = (String) args[0];
+                    titleUpdates++;
+                    return null;
+                case "getProgress":
+                    return progress;
+                case "setProgress":
+                    progress = (double) args[0];
+                    progressUpdates++;
+                    return null;
+                case "getColor":
+                    return color;
+                case "getStyle":
+                    return style;
+                case "addPlayer":
+                    if (!players.contains(args[0])) {
+                        players.add((Player) args[0]);
+                    }
+                    return null;
+                case "removePlayer":
+                    players.remove(args[0]);
+                    return null;
+                case "removeAll":
+                    players.clear();
+                    return null;
+                case "getPlayers":
+                    return new ArrayList<>(players);
+                case "isVisible":
+                    return visible;
+                case "setVisible":
+                    visible = (boolean) args[0];
+                    return null;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * @return The bossbar Bukkit hands out.
+     */
+    public BossBar getBossbar() {
+        return bossbar;
+    }
+
+    /**
+     * @return How many times the progress was set.
+     */
+    public long getProgressUpdates() {
+        return progressUpdates;
+    }
+
+    /**
+     * @return How many times the title was set.
+     */
+    public long getTitleUpdates() {
+        return titleUpdates;
+    }
+}
@@ -0,0 +1,64 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * A player that stands still in one world and has every permission. Messages, sounds and titles go nowhere.
+ */
+public class FakePlayer {
+
+    private final String name;
+    private final UUID uuid = UUID.randomUUID();
+    private final Player player;
+    private World world;
+
+    FakePlayer(String name, World world) {
+        this.name = name;
+        this.world = world;
+        this.player = StandIns.proxy(Player.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                case "getDisplayName":
+                case "getPlayerListName":
+                    return this.name;
+                case "getUniqueId":
+                    return uuid;
+                case "getWorld":
+                    return this.world;
+                case "getLocation":
+                    if (args.length == 1) {
+                        Location location = (Location) args[0];
+                        location.setWorld(this.world);
+                        location.setX(0);
+                        location.setY(64);
+                        location.setZ(0);
+                        return location;
+                    }
+                    return new Location(this.world, 0, 64, 0);
+                case "isOnline":
+                case "hasPermission":
+                    return true;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * @return The player Bukkit hands out.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @param world The world the player is now in.
+     */
+    public void setWorld(World world) {
+        this.world = world;
+    }
+}
@@ -0,0 +1,199 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A scheduler that only moves forward when {@link #tick()} is called, so benchmarks decide exactly when tasks run.
+ * <p>
+ * Asynchronous tasks and sync method calls run straight away on the calling thread.
+ */
+public class FakeScheduler {
+
+    private final class Task {
+        private final int id;
+        private final Object work;
+        private final long period;
+        private long nextTick;
+        private boolean cancelled = false;
+        private BukkitTask handle;
+
+        private Task(int id, Object work, long delay, long period) {
+            this.id = id;
+            this.work = work;
+            this.period = period;
+            this.nextTick = currentTick + Math.max(1, delay);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run() {
+            if (work instanceof Runnable) {
+                ((Runnable) work).run();
+            } else {
+                ((Consumer<BukkitTask>) work).accept(handle);
+            }
+        }
+    }
+
+    private final BukkitScheduler scheduler;
+    private final List<Task> tasks = new ArrayList<>();
+    private long currentTick = 0;
+    private int nextId = 1;
+
+    FakeScheduler() {
+        scheduler = StandIns.proxy(BukkitScheduler.class, (method, args) -> {
+            switch (method.getName()) {
+                case "runTask":
+                    return schedule(args[1], 0, -1);
+                case "runTaskLater":
+                    return schedule(args[1], (long) args[2], -1);
+                case "runTaskTimer":
+                    return schedule(args[1], (long) args[2], (long) args[3]);
+                case "runTaskAsynchronously":
+                case "runTaskLaterAsynchronously":
+                case "runTaskTimerAsynchronously":
+                    return runNow(args[1]);
+                case "callSyncMethod":
+                    return CompletableFuture.completedFuture(((Callable<?>) args[1]).call());
+                case "cancelTask":
+                    cancel((int) args[0]);
+                    return null;
+                case "cancelTasks":
+                    for (Task task : tasks) {
+                        task.cancelled = true;
+                    }
+                    tasks.clear();
+                    return null;
+                case "isQueued":
+                    return find((int) args[0]) != null;
+                case "isCurrentlyRunning":
+                    return false;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * @return The scheduler Bukkit hands out.
+     */
+    public BukkitScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Runs one tick, running every task that is due.
+     */
+    public void tick() {
+        currentTick++;
+        // tasks scheduled while running wait for the next tick, like on a real server
+        for (Task task : new ArrayList<>(tasks)) {
+            if (task.cancelled || task.nextTick > currentTick) {
+                continue;
+            }
+            if (task.period <= 0) {
+                tasks.remove(task);
+                task.cancelled = true;
+            } else {
+                task.nextTick = currentTick + task.period;
+            }
+            task.run();
+        }
+    }
+
+    /**
+     * @param ticks How many ticks to run.
+     */
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * @return How many ticks have run.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return How many tasks are waiting to run.
+     */
+    public int getPendingTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Cancels every task.
+     */
+    public void reset() {
+        for (Task task : tasks) {
+            task.cancelled = true;
+        }
+        tasks.clear();
+    }
+
+    private BukkitTask schedule(Object work, long delay, long period) {
+        Task task = new Task(nextId++, work, delay, period);
+        task.handle = handle(task);
+        tasks.add(task);
+        return task.handle;
+    }
+
+    private BukkitTask runNow(Object work) {
+        Task task = new Task(nextId++, work, 0, -1);
+        task.handle = handle(task);
+        task.cancelled = true;
+        task.run();
+        return task.handle;
+    }
+
+    private BukkitTask handle(Task task) {
+        return StandIns.proxy(BukkitTask.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getTaskId":
+                    return task.id;
+                case "cancel":
+                    cancel(task.id);
+                    return null;
+                case "isCancelled":
+                    return task.cancelled;
+                case "isSync":
+                    return true;
+                case "getOwner":
+                    return FakeServer.get().getPlugin();
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    private Task find(int id) {
+        for (Task task : tasks) {
+            if (task.id == id) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void cancel(int id) {
+        Iterator<Task> iterator = tasks.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (task.id == id) {
+                task.cancelled = true;
+                iterator.remove();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import me.diffusehyperion.gamemaster.GameMaster;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory server, installed as Bukkit's server and as {@link GameMaster#plugin}, so GameMaster's code can run in a plain JVM.
+ * <p>
+ * Worlds, players and bossbars are stand-ins from this package. Events are handed to the listeners registered in each event's handler list.
+ * The world container and the plugin's folder are temporary folders.
+ */
+public class FakeServer {
+
+    private static FakeServer instance;
+
+    private final Logger logger = Logger.getLogger("GameMaster-Benchmarks");
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final Map<String, FakeWorld> worlds = new LinkedHashMap<>();
+    private final List<Player> players = new ArrayList<>();
+    private final File worldContainer;
+    private final File dataFolder;
+    private final Plugin plugin;
+    private final PluginManager pluginManager;
+    private final Server server;
+
+    private FakeServer() throws IOException {
+        logger.setLevel(Level.WARNING);
+        worldContainer = Files.createTempDirectory("gamemaster-benchmarks").toFile();
+        dataFolder = new File(worldContainer, "plugins" + File.separator + "GameMaster");
+        dataFolder.mkdirs();
+        plugin = StandIns.proxy(Plugin.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "GameMaster";
+                case "getDataFolder":
+                    return dataFolder;
+                case "getLogger":
+                    return logger;
+                case "getServer":
+                    return getServer();
+                case "isEnabled":
+                    return true;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+        pluginManager = StandIns.proxy(PluginManager.class, (method, args) -> {
+            switch (method.getName()) {
+                case "callEvent":
+                    callEvent((Event) args[0]);
+                    return null;
+                case "getPlugin":
+                    return "GameMaster".equals(args[0]) ? plugin : null;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+        server = StandIns.proxy(Server.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return logger;
+                case "getName":
+                    return "GameMaster-Benchmarks";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "1.13.2-R0.1-SNAPSHOT";
+                case "getScheduler":
+                    return scheduler.getScheduler();
+                case "getPluginManager":
+                    return pluginManager;
+                case "getOnlinePlayers":
+                    return Collections.unmodifiableList(players);
+                case "getWorldContainer":
+                    return worldContainer;
+                case "getWorld":
+                    FakeWorld world = args[0] instanceof String ? worlds.get(args[0]) : null;
+                    return world == null ? null : world.getWorld();
+                case "getWorlds":
+                    List<World> all = new ArrayList<>();
+                    for (FakeWorld fake : worlds.values()) {
+                        all.add(fake.getWorld());
+                    }
+                    return all;
+                case "createBossBar":
+                    return new FakeBossBar((String) args[0], (BarColor) args[1], (BarStyle) args[2]).getBossbar();
+                case "isPrimaryThread":
+                    return true;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * Installs the server the first time this is called.
+     * @return The server.
+     */
+    public static synchronized FakeServer get() {
+        if (instance == null) {
+            try {
+                instance = new FakeServer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Bukkit.setServer(instance.server);
+            GameMaster.plugin = instance.plugin;
+        }
+        return instance;
+    }
+
+    /**
+     * @return The server Bukkit hands out.
+     */
+    public Server getServer() {
+        return server;
+    }
+
+    /**
+     * @return The stand-in for GameMaster.
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * @return The scheduler, which only moves when ticked.
+     */
+    public FakeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The temporary folder worlds are kept in.
+     */
+    public File getWorldContainer() {
+        return worldContainer;
+    }
+
+    /**
+     * @param name The world's name.
+     * @return A new empty world, replacing any world with the same name.
+     */
+    public FakeWorld createWorld(String name) {
+        FakeWorld world = new FakeWorld(name);
+        worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * @param name The player's name.
+     * @param world The world the player is in.
+     * @return A new online player.
+     */
+    public FakePlayer addPlayer(String name, World world) {
+        FakePlayer player = new FakePlayer(name, world);
+        players.add(player.getPlayer());
+        return player;
+    }
+
+    /**
+     * Removes every player and world, and cancels every task.
+     */
+    public void reset() {
+        players.clear();
+        worlds.clear();
+        scheduler.reset();
+    }
+
+    private void callEvent(Event event) {
+        for (RegisteredListener listener : event.getHandlers().getRegisteredListeners()) {
+            try {
+                listener.callEvent(event);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Could not pass " + event.getEventName(), e);
+            }
+        }
+    }
+}
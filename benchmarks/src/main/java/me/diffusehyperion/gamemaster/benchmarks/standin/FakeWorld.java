@@ -0,0 +1,282 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Sign;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Directional;
+import org.bukkit.block.data.type.WallSign;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A world that only stores block types, kept in memory one chunk column at a time. Every block starts as air.
+ * <p>
+ * Wall signs also keep which way they face and their text, so sign contents can be checked. Setting a block's type clears both.
+ */
+public class FakeWorld {
+
+    /**
+     * How tall the world is.
+     */
+    public static final int HEIGHT = 256;
+
+    private final String name;
+    private final UUID uuid = UUID.randomUUID();
+    private final World world;
+    private final Map<Long, Material[]> columns = new HashMap<>();
+    private final Map<Long, BlockFace> facings = new HashMap<>();
+    private final Map<Long, String[]> signs = new HashMap<>();
+    private long changes = 0;
+
+    FakeWorld(String name) {
+        this.name = name;
+        this.world = StandIns.proxy(World.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return this.name;
+                case "getUID":
+                    return uuid;
+                case "getBlockAt":
+                    if (args.length == 1) {
+                        Location location = (Location) args[0];
+                        return block(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+                    }
+                    return block((int) args[0], (int) args[1], (int) args[2]);
+                case "getMaxHeight":
+                    return HEIGHT;
+                case "getPlayers":
+                    return Collections.emptyList();
+                case "getEnvironment":
+                    return World.Environment.NORMAL;
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * @return The world Bukkit hands out.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return The world's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return How many times a block was set.
+     */
+    public long getChanges() {
+        return changes;
+    }
+
+    /**
+     * @param x The X of the block.
+     * @param y The Y of the block.
+     * @param z The Z of the block.
+     * @return The block's type.
+     */
+    public Material getType(int x, int y, int z) {
+        if (y < 0 || y >= HEIGHT) {
+            return Material.AIR;
+        }
+        Material[] column = columns.get(key(x >> 4, z >> 4));
+        Material type = column == null ? null : column[index(x, y, z)];
+        return type == null ? Material.AIR : type;
+    }
+
+    /**
+     * @param x The X of the block.
+     * @param y The Y of the block.
+     * @param z The Z of the block.
+     * @param type The block's new type.
+     */
+    public void setType(int x, int y, int z, Material type) {
+        if (y < 0 || y >= HEIGHT) {
+            return;
+        }
+        columns.computeIfAbsent(key(x >> 4, z >> 4), k -> new Material[16 * 16 * HEIGHT])[index(x, y, z)] = type;
+        facings.remove(position(x, y, z));
+        signs.remove(position(x, y, z));
+        changes++;
+    }
+
+    /**
+     * Places a wall sign.
+     * @param x The X of the block.
+     * @param y The Y of the block.
+     * @param z The Z of the block.
+     * @param facing The way the sign faces, away from the block it hangs on.
+     * @param lines The sign's text, up to 4 lines.
+     */
+    public void setSign(int x, int y, int z, BlockFace facing, String... lines) {
+        setType(x, y, z, Material.WALL_SIGN);
+        facings.put(position(x, y, z), facing);
+        String[] text = {"", "", "", ""};
+        System.arraycopy(lines, 0, text, 0, Math.min(lines.length, text.length));
+        signs.put(position(x, y, z), text);
+    }
+
+    /**
+     * @param x The X of the block.
+     * @param y The Y of the block.
+     * @param z The Z of the block.
+     * @return The sign's text, or null if the block is not a sign.
+     */
+    public String[] getSignLines(int x, int y, int z) {
+        String[] lines = signs.get(position(x, y, z));
+        return lines == null ? null : lines.clone();
+    }
+
+    /**
+     * @param x The X of the block.
+     * @param y The Y of the block.
+     * @param z The Z of the block.
+     * @return The way the block faces, or null if it does not face anywhere.
+     */
+    public BlockFace getFacing(int x, int y, int z) {
+        return facings.get(position(x, y, z));
+    }
+
+    /**
+     * Sets every block back to air.
+     */
+    public void clear() {
+        columns.clear();
+        facings.clear();
+        signs.clear();
+        changes = 0;
+    }
+
+    private Block block(int x, int y, int z) {
+        return StandIns.proxy(Block.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getType":
+                    return getType(x, y, z);
+                case "setType":
+                    setType(x, y, z, (Material) args[0]);
+                    return null;
+                case "getBlockData":
+                    return blockData(getType(x, y, z), getFacing(x, y, z));
+                case "setBlockData":
+                    setBlockData(x, y, z, (BlockData) args[0]);
+                    return null;
+                case "getState":
+                    return state(x, y, z);
+                case "getRelative":
+                    if (args.length == 1) {
+                        BlockFace face = (BlockFace) args[0];
+                        return block(x + face.getModX(), y + face.getModY(), z + face.getModZ());
+                    }
+                    return StandIns.UNHANDLED;
+                case "isEmpty":
+                    return getType(x, y, z) == Material.AIR;
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world;
+                case "getLocation":
+                    return new Location(world, x, y, z);
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    private void setBlockData(int x, int y, int z, BlockData data) {
+        setType(x, y, z, data.getMaterial());
+        if (data instanceof Directional) {
+            facings.put(position(x, y, z), ((Directional) data).getFacing());
+        }
+    }
+
+    private static BlockData blockData(Material type, BlockFace facing) {
+        Class<? extends BlockData> kind = type == Material.WALL_SIGN ? WallSign.class : BlockData.class;
+        return StandIns.proxy(kind, (method, args) -> {
+            switch (method.getName()) {
+                case "getMaterial":
+                    return type;
+                case "getFacing":
+                    return facing;
+                case "clone":
+                    return blockData(type, facing);
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    // a copy of the block as it is now, which only changes the world when updated
+    private BlockState state(int x, int y, int z) {
+        Material type = getType(x, y, z);
+        BlockData data = blockData(type, getFacing(x, y, z));
+        String[] lines = getSignLines(x, y, z);
+        Class<? extends BlockState> kind = lines == null ? BlockState.class : Sign.class;
+        return StandIns.proxy(kind, (method, args) -> {
+            switch (method.getName()) {
+                case "getType":
+                    return type;
+                case "getBlockData":
+                    return data;
+                case "getLines":
+                    return lines;
+                case "getLine":
+                    return lines[(int) args[0]];
+                case "setLine":
+                    lines[(int) args[0]] = (String) args[1];
+                    return null;
+                case "update":
+                    boolean force = args.length > 0 && (boolean) args[0];
+                    if (!force && getType(x, y, z) != type) {
+                        return false;
+                    }
+                    setBlockData(x, y, z, data);
+                    if (lines != null) {
+                        signs.put(position(x, y, z), lines.clone());
+                    }
+                    return true;
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world;
+                case "getBlock":
+                    return block(x, y, z);
+                default:
+                    return StandIns.UNHANDLED;
+            }
+        });
+    }
+
+    private static long position(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
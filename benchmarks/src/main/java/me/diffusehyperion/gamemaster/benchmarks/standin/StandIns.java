@@ -0,0 +1,92 @@
+package me.diffusehyperion.gamemaster.benchmarks.standin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Builds in-memory stand-ins for Bukkit interfaces, so GameMaster can run without a server.
+ * <p>
+ * A stand-in only answers the methods its handler knows about. Everything else returns null, 0 or false,
+ * so the Bukkit API can change without the stand-ins needing to implement every new method.
+ */
+public final class StandIns {
+
+    /**
+     * Returned by a {@link Handler} for methods it does not know about.
+     */
+    public static final Object UNHANDLED = new Object();
+
+    /**
+     * Answers the methods called on a stand-in.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param method The method called.
+         * @param args The arguments, never null.
+         * @return The result, or {@link #UNHANDLED}.
+         */
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private StandIns() {
+    }
+
+    /**
+     * @param type The interface to stand in for.
+     * @param handler Answers the methods called.
+     * @return The stand-in.
+     */
+    public static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Object[] arguments = args == null ? NO_ARGS : args;
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return self == arguments[0];
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    default:
+                        return type.getSimpleName() + " stand-in";
+                }
+            }
+            Object result = handler.handle(method, arguments);
+            return result == UNHANDLED ? defaultValue(method.getReturnType()) : result;
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * @param type A type.
+     * @return What an unset field of the type holds.
+     */
+    public static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.BlockJournal;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeWorld;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BlockJournalTest {
+
+    private final BlockJournal.RecordingListener listener = new BlockJournal.RecordingListener();
+    private FakeWorld world;
+    private BlockJournal journal;
+
+    @Before
+    public void setup() {
+        FakeServer server = FakeServer.get();
+        server.reset();
+        world = server.createWorld("journal");
+        journal = BlockJournal.start(world.getWorld());
+    }
+
+    @After
+    public void tearDown() {
+        journal.stop();
+    }
+
+    // fires the event, then removes the blocks like the server and its physics would
+    private void breakBlock(int x, int y, int z, int[]... poppedOff) {
+        listener.onBreak(new BlockBreakEvent(world.getWorld().getBlockAt(x, y, z), null));
+        world.setType(x, y, z, Material.AIR);
+        for (int[] block : poppedOff) {
+            world.setType(block[0], block[1], block[2], Material.AIR);
+        }
+    }
+
+    @Test
+    public void wallSignOnABrokenBlockComesBackWithItsText() {
+        world.setType(0, 64, 0, Material.STONE);
+        world.setSign(1, 64, 0, BlockFace.EAST, "Red team", "spawn");
+        breakBlock(0, 64, 0, new int[]{1, 64, 0});
+        assertEquals(2, journal.size());
+
+        journal.rollbackNow();
+        assertEquals(Material.STONE, world.getType(0, 64, 0));
+        assertEquals(Material.WALL_SIGN, world.getType(1, 64, 0));
+        assertEquals(BlockFace.EAST, world.getFacing(1, 64, 0));
+        assertArrayEquals(new String[]{"Red team", "spawn", "", ""}, world.getSignLines(1, 64, 0));
+    }
+
+    @Test
+    public void stackedCactusComesBack() {
+        world.setType(0, 64, 0, Material.SAND);
+        for (int y = 65; y <= 67; y++) {
+            world.setType(0, y, 0, Material.CACTUS);
+        }
+        breakBlock(0, 64, 0, new int[]{0, 65, 0}, new int[]{0, 66, 0}, new int[]{0, 67, 0});
+        assertEquals(4, journal.size());
+
+        journal.rollbackNow();
+        assertEquals(Material.SAND, world.getType(0, 64, 0));
+        for (int y = 65; y <= 67; y++) {
+            assertEquals(Material.CACTUS, world.getType(0, y, 0));
+        }
+    }
+
+    @Test
+    public void fullNeighboursAreNotRecorded() {
+        world.setType(0, 64, 0, Material.STONE);
+        world.setType(1, 64, 0, Material.STONE);
+        world.setType(0, 65, 0, Material.DIRT);
+        breakBlock(0, 64, 0);
+        assertEquals(1, journal.size());
+    }
+}
@@ -0,0 +1,61 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Utility.ConfigEditor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigEditorTest {
+
+    @Test
+    public void propertiesKeepEveryOtherLine() {
+        String content = "#Minecraft server properties\r\n"
+                + "#Sun Jan 01 00:00:00 UTC 2023\r\n"
+                + "allow-nether=true\r\n"
+                + "\r\n"
+                + "level-name=world\r\n"
+                + "motd=A Minecraft Server";
+        ConfigEditor editor = ConfigEditor.properties(content);
+        assertEquals("true", editor.get("allow-nether"));
+        assertTrue(editor.set("allow-nether", "false"));
+        assertEquals(content.replace("allow-nether=true", "allow-nether=false"), editor.getContent());
+    }
+
+    @Test
+    public void unchangedValuesLeaveTheContentAlone() {
+        String content = "level-name=world\n";
+        ConfigEditor editor = ConfigEditor.properties(content);
+        assertFalse(editor.set("level-name", "world"));
+        assertEquals(content, editor.getContent());
+    }
+
+    @Test
+    public void missingPropertiesAreAdded() {
+        ConfigEditor editor = ConfigEditor.properties("level-name=world\n");
+        assertTrue(editor.set("allow-end", "false"));
+        assertEquals("false", editor.get("allow-end"));
+        assertTrue(editor.getContent().startsWith("level-name=world\n"));
+    }
+
+    @Test
+    public void yamlKeepsCommentsAndSections() {
+        String content = "# This is the main configuration file for Bukkit.\n"
+                + "settings:\n"
+                + "  allow-end: true # the end\n"
+                + "  warn-on-overload: true\n"
+                + "spawn-limits:\n"
+                + "  monsters: 70\n";
+        ConfigEditor editor = ConfigEditor.yaml(content);
+        assertEquals("true", editor.get("settings.allow-end"));
+        assertTrue(editor.set("settings.allow-end", "false"));
+        assertEquals(content.replace("allow-end: true # the end", "allow-end: false # the end"), editor.getContent());
+        assertEquals("70", editor.get("spawn-limits.monsters"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void yamlSectionsCannotBeSet() {
+        ConfigEditor.yaml("settings:\n  allow-end: true\n").set("settings", "false");
+    }
+}
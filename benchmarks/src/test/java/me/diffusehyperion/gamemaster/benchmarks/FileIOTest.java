@@ -0,0 +1,85 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileIOTest {
+
+    private Path folder;
+    private Path file;
+
+    @Before
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("gamemaster-fileio-test");
+        file = folder.resolve("server.properties");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder.toFile());
+    }
+
+    private String[] folderContents() {
+        String[] names = folder.toFile().list();
+        return names == null ? new String[0] : names;
+    }
+
+    @Test
+    public void writeReplacesTheFileAndLeavesNothingBehind() throws IOException {
+        FileIO.write(file, "level-name=world\r\n");
+        FileIO.write(file, "level-name=arena\r\n");
+        assertEquals("level-name=arena\r\n", FileIO.read(file));
+        assertArrayEquals(new String[]{"server.properties"}, folderContents());
+    }
+
+    @Test
+    public void writeKeepsBytesExactly() throws IOException {
+        byte[] bytes = new byte[70000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        FileIO.write(file, bytes);
+        assertArrayEquals(bytes, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void failedWritesKeepTheOldFile() throws IOException {
+        FileIO.write(file, "level-name=world\n");
+        File blocked = folder.resolve("folder").toFile();
+        assertTrue(blocked.mkdir());
+        try {
+            // a folder cannot be replaced by a file, so the write fails after the temporary file is written
+            FileIO.write(blocked.toPath(), "level-name=arena\n");
+        } catch (IOException expected) {
+            assertEquals("level-name=world\n", FileIO.read(file));
+            assertTrue(blocked.isDirectory());
+            assertEquals(2, folderContents().length);
+            return;
+        }
+        throw new AssertionError("writing over a folder should fail");
+    }
+
+    @Test
+    public void transformLinesKeepsTerminatorsAndOnlyWritesChanges() throws IOException {
+        String content = "a=1\r\nb=2\nc=3";
+        FileIO.write(file, content);
+        assertFalse(FileIO.transformLines(file, StandardCharsets.UTF_8, line -> line));
+        assertTrue(FileIO.transformLines(file, StandardCharsets.UTF_8, line -> line.equals("b=2") ? "b=4" : line));
+        assertEquals("a=1\r\nb=4\nc=3", FileIO.read(file));
+        assertArrayEquals(new String[]{"server.properties"}, folderContents());
+    }
+}
@@ -0,0 +1,62 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.FillTask;
+import me.diffusehyperion.gamemaster.Components.GameWorld;
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeWorld;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FillTest {
+
+    private FakeWorld world;
+    private Location loc1;
+    private Location loc2;
+
+    @Before
+    public void setup() {
+        FakeServer server = FakeServer.get();
+        server.reset();
+        world = server.createWorld("fill");
+        // corners given in any order
+        loc1 = new Location(world.getWorld(), 3, 12, 4);
+        loc2 = new Location(world.getWorld(), 0, 10, 0);
+    }
+
+    @Test
+    public void fillsEveryBlockInTheArea() {
+        GameWorld.fillBlocks(loc1, loc2, Material.STONE);
+        for (int x = 0; x <= 3; x++) {
+            for (int y = 10; y <= 12; y++) {
+                for (int z = 0; z <= 4; z++) {
+                    assertEquals(Material.STONE, world.getType(x, y, z));
+                }
+            }
+        }
+        assertEquals(Material.AIR, world.getType(4, 10, 0));
+        assertEquals(Material.AIR, world.getType(0, 13, 0));
+        assertEquals(4 * 3 * 5, world.getChanges());
+    }
+
+    @Test
+    public void skipsBlocksThatAlreadyMatch() {
+        GameWorld.fillBlocks(loc1, loc2, Material.STONE);
+        long changes = world.getChanges();
+        GameWorld.fillBlocks(loc1, loc2, Material.STONE);
+        assertEquals(changes, world.getChanges());
+    }
+
+    @Test
+    public void hollowFillOnlySetsTheShell() {
+        FillTask task = new FillTask(loc1, loc2, Material.DIRT, null, FillTask.FillMode.HOLLOW, BudgetedTask.DEFAULT_BUDGET_MILLIS).runNow();
+        assertEquals(Material.DIRT, world.getType(0, 10, 0));
+        assertEquals(Material.AIR, world.getType(1, 11, 1));
+        // 4x3x5 minus the 2x1x3 inside
+        assertEquals(60 - 6, task.getBlocksChanged());
+    }
+}
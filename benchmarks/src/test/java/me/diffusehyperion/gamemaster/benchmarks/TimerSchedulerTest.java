@@ -0,0 +1,81 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.GamePlayer;
+import me.diffusehyperion.gamemaster.Components.TimerHandle;
+import me.diffusehyperion.gamemaster.Components.TimerScheduler;
+import me.diffusehyperion.gamemaster.benchmarks.standin.FakeServer;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerSchedulerTest {
+
+    private FakeServer server;
+    private final AtomicInteger ran = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        server = FakeServer.get();
+        server.reset();
+    }
+
+    @After
+    public void tearDown() {
+        TimerScheduler.cancelAll();
+        // sends any bossbar change still waiting, so the next test starts clean
+        server.getScheduler().tick();
+    }
+
+    @Test
+    public void progressAndTitleFollowTheTime() {
+        TimerHandle timer = GamePlayer.timerHandle(1, "%time_left:0.0%", BarColor.RED, BarStyle.SOLID, null, ran::incrementAndGet);
+        // 5 passes of 2 ticks, plus the tick the bossbar is sent on
+        server.getScheduler().tick(11);
+        assertEquals(10, timer.getRemainingTicks());
+        assertEquals(0.5, timer.getBossbar().getProgress(), 0.05);
+        assertEquals("0.5", timer.getBossbar().getTitle());
+        assertFalse(timer.isCompleted());
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void runsTheTaskOnceWhenDone() {
+        TimerHandle timer = GamePlayer.timerHandle(1, "%time_left%", BarColor.RED, BarStyle.SOLID, null, ran::incrementAndGet);
+        server.getScheduler().tick(20);
+        assertTrue(timer.isCompleted());
+        assertEquals(1, ran.get());
+        assertEquals(0, TimerScheduler.getActiveTimers());
+        server.getScheduler().tick(20);
+        assertEquals(1, ran.get());
+    }
+
+    @Test
+    public void pausedTimersDoNotFinish() {
+        TimerHandle timer = GamePlayer.timerHandle(1, "%time_left%", BarColor.RED, BarStyle.SOLID, null, ran::incrementAndGet);
+        server.getScheduler().tick(10);
+        timer.pause();
+        server.getScheduler().tick(40);
+        assertFalse(timer.isCompleted());
+        timer.resume();
+        server.getScheduler().tick(10);
+        assertTrue(timer.isCompleted());
+        assertEquals(1, ran.get());
+    }
+
+    @Test
+    public void cancelledTimersDoNotRunTheirTask() {
+        TimerHandle timer = GamePlayer.timerHandle(1, "%time_left%", BarColor.RED, BarStyle.SOLID, null, ran::incrementAndGet);
+        timer.cancel();
+        server.getScheduler().tick(40);
+        assertEquals(0, ran.get());
+        assertEquals(0, TimerScheduler.getActiveTimers());
+    }
+}
@@ -0,0 +1,71 @@
+package me.diffusehyperion.gamemaster.benchmarks;
+
+import me.diffusehyperion.gamemaster.Components.TitleTemplate;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TitleTemplateTest {
+
+    private static String render(String title, long ticksLeft, long ticksElapsed) {
+        StringBuilder out = new StringBuilder();
+        TitleTemplate.compile(title).render(out, ticksLeft, ticksElapsed, "Alice, Bob", null);
+        return out.toString();
+    }
+
+    @Test
+    public void rendersTimeFormats() {
+        assertEquals("59.9", render("%time_left%", 1199, 0));
+        assertEquals("00:59", render("%time_left:mm:ss%", 1199, 0));
+        assertEquals("01:01:01", render("%time_left:hh:mm:ss%", 3661 * 20, 0));
+        assertEquals("59", render("%time_left:0%", 1199, 0));
+        assertEquals("59.9", render("%time_left:0.0%", 1199, 0));
+        assertEquals("59.95", render("%time_left:0.00%", 1199, 0));
+        assertEquals("0.5", render("%time_elapsed%", 0, 10));
+    }
+
+    @Test
+    public void rendersPlayersAndLiterals() {
+        assertEquals("Left: 1.0 | Alice, Bob", render("Left: %time_left% | %players_shown%", 20, 0));
+    }
+
+    @Test
+    public void rendersCustomValues() {
+        Map<String, String> values = new HashMap<>();
+        values.put("{kills}", "3");
+        TitleTemplate template = TitleTemplate.compile("Kills: {kills}", values.keySet());
+        StringBuilder out = new StringBuilder();
+        assertTrue(template.render(out, 0, 0, "", values));
+        assertEquals("Kills: 3", out.toString());
+        values.put("{kills}", "4");
+        assertTrue(template.render(out, 0, 0, "", values));
+        assertEquals("Kills: 4", out.toString());
+    }
+
+    @Test
+    public void skipsRedrawingWhenNothingVisibleChanged() {
+        TitleTemplate template = TitleTemplate.compile("%time_left:mm:ss%");
+        StringBuilder out = new StringBuilder();
+        assertTrue(template.render(out, 1199, 0, "", null));
+        // still 00:59 until a whole second passes
+        assertFalse(template.render(out, 1181, 18, "", null));
+        assertEquals("00:59", out.toString());
+        assertTrue(template.render(out, 1179, 20, "", null));
+        assertEquals("00:58", out.toString());
+    }
+
+    @Test
+    public void keepsUnknownPlaceholders() {
+        TitleTemplate template = TitleTemplate.compile("%nope% %time_left%", Collections.emptySet());
+        assertEquals(Collections.singletonList("%nope%"), template.getUnknownPlaceholders());
+        StringBuilder out = new StringBuilder();
+        template.render(out, 20, 0, "", null);
+        assertEquals("%nope% 1.0", out.toString());
+    }
+}
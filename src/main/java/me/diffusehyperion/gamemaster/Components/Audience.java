@@ -0,0 +1,221 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A group of players that can be broadcast to with {@link GameBroadcast}.
+ * <p>
+ * Members are worked out once, then kept up to date as players join, quit and change worlds, instead of being worked out again for every broadcast.
+ * <p>
+ * Permission audiences are only checked when a player joins. Use {@link #refresh()} after changing permissions.
+ */
+public class Audience {
+
+    private enum Type {
+        ALL,
+        WORLD,
+        PERMISSION,
+        CUSTOM
+    }
+
+    private static final Audience all = new Audience(Type.ALL, null);
+    private static final Map<String, Audience> worlds = new HashMap<>();
+    private static final Map<String, Audience> permissions = new HashMap<>();
+    private static final List<Audience> custom = new ArrayList<>();
+
+    private final Type type;
+    private final String key;
+    private final Set<Player> members = new LinkedHashSet<>();
+    private final Set<Player> view = Collections.unmodifiableSet(members);
+
+    private Audience(Type type, String key) {
+        this.type = type;
+        this.key = key;
+        refresh();
+    }
+
+    /**
+     * @return Every online player.
+     */
+    public static Audience all() {
+        return all;
+    }
+
+    /**
+     * @param world The world.
+     * @return Every player in a world.
+     */
+    public static Audience world(World world) {
+        return worlds.computeIfAbsent(world.getName(), name -> new Audience(Type.WORLD, name));
+    }
+
+    /**
+     * @param permission The permission.
+     * @return Every online player with a permission.
+     */
+    public static Audience permission(String permission) {
+        return permissions.computeIfAbsent(permission, perm -> new Audience(Type.PERMISSION, perm));
+    }
+
+    /**
+     * Creates an audience that only changes when players are added or removed, such as the players in an arena.
+     * <p>
+     * Players are still removed automatically when they quit. Call {@link #dispose()} once the audience is no longer needed.
+     * @param players The starting members.
+     * @return The audience.
+     */
+    public static Audience custom(Collection<? extends Player> players) {
+        Audience audience = new Audience(Type.CUSTOM, null);
+        audience.members.addAll(players);
+        custom.add(audience);
+        return audience;
+    }
+
+    /**
+     * @return The current members. This view cannot be changed, but it follows the audience.
+     */
+    public Set<Player> getMembers() {
+        return view;
+    }
+
+    /**
+     * @return How many players are in the audience.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @param player The player.
+     * @return If the player is in the audience.
+     */
+    public boolean contains(Player player) {
+        return members.contains(player);
+    }
+
+    /**
+     * Adds a player to a custom audience.
+     * @param player The player.
+     */
+    public void add(Player player) {
+        checkCustom();
+        members.add(player);
+    }
+
+    /**
+     * Removes a player from a custom audience.
+     * @param player The player.
+     */
+    public void remove(Player player) {
+        checkCustom();
+        members.remove(player);
+    }
+
+    /**
+     * Stops keeping a custom audience up to date.
+     */
+    public void dispose() {
+        custom.remove(this);
+        members.clear();
+    }
+
+    /**
+     * Works out the members again from scratch. Custom audiences are left alone.
+     */
+    public void refresh() {
+        if (type == Type.CUSTOM) {
+            return;
+        }
+        members.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (matches(player)) {
+                members.add(player);
+            }
+        }
+    }
+
+    private boolean matches(Player player) {
+        switch (type) {
+            case ALL:
+                return true;
+            case WORLD:
+                return player.getWorld().getName().equals(key);
+            case PERMISSION:
+                return player.hasPermission(key);
+            default:
+                return false;
+        }
+    }
+
+    private void checkCustom() {
+        if (type != Type.CUSTOM) {
+            throw new IllegalStateException("Only custom audiences can be changed by hand!");
+        }
+    }
+
+    /**
+     * Keeps every audience up to date.
+     */
+    public static class MembershipListener implements Listener {
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void playerJoin(PlayerJoinEvent e) {
+            Player player = e.getPlayer();
+            all.members.add(player);
+            Audience world = worlds.get(player.getWorld().getName());
+            if (world != null) {
+                world.members.add(player);
+            }
+            for (Audience permission : permissions.values()) {
+                if (permission.matches(player)) {
+                    permission.members.add(player);
+                }
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void playerQuit(PlayerQuitEvent e) {
+            Player player = e.getPlayer();
+            all.members.remove(player);
+            Audience world = worlds.get(player.getWorld().getName());
+            if (world != null) {
+                world.members.remove(player);
+            }
+            for (Audience permission : permissions.values()) {
+                permission.members.remove(player);
+            }
+            for (Audience audience : custom) {
+                audience.members.remove(player);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void playerChangedWorld(PlayerChangedWorldEvent e) {
+            Player player = e.getPlayer();
+            Audience from = worlds.get(e.getFrom().getName());
+            if (from != null) {
+                from.members.remove(player);
+            }
+            Audience to = worlds.get(player.getWorld().getName());
+            if (to != null) {
+                to.members.add(player);
+            }
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.Utility.LongIntMap;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Banner;
+import org.bukkit.block.Beacon;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.CommandBlock;
+import org.bukkit.block.Container;
+import org.bukkit.block.CreatureSpawner;
+import org.bukkit.block.Jukebox;
+import org.bukkit.block.Sign;
+import org.bukkit.block.Skull;
+import org.bukkit.block.data.Bisected;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.type.Bed;
+import org.bukkit.block.data.type.Stairs;
+import org.bukkit.block.data.type.TrapDoor;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers what blocks in a world looked like before a round, so the world can be put back without deleting and creating it again.
+ * <p>
+ * The first time a block changes, its original block data is recorded. Later changes to the same block are ignored, since only the original matters.
+ * Positions are packed into a single long, and block data is stored once in a palette, so each changed block costs around 30 bytes.
+ * <p>
+ * Blocks that hold more than their block data, such as chests, signs, spawners, banners, skulls, command blocks, jukeboxes and beacons, also have their whole block state recorded.
+ * Rolling back puts their contents back too, so a looted chest is refilled and a broken sign gets its text back. Other tile entities, such as structure blocks or end gateways, come back with their default contents.
+ * <p>
+ * Blocks that pop off without an event when what holds them up is broken, burnt, blown up or pushed are recorded along with it:
+ * blocks on its sides or on top of it such as wall signs, torches, ladders and rails, the other half of doors, beds and tall plants, and cactus, sugar cane or kelp stacked above it.
+ * Rolling back only touches the blocks that changed, so it takes as long as the players took to wreck the arena, not as long as the world is big.
+ * <p>
+ * Changes made by players, explosions, fire, liquids, pistons, plants and falling blocks are recorded by {@link RecordingListener}.
+ * Changes made by plugins do not fire events, so call {@link #record(Block)} before changing a block yourself.
+ */
+public class BlockJournal {
+
+    private static final Map<String, BlockJournal> journals = new HashMap<>();
+    private static final Metrics.Counter RESTORED_BLOCKS = Metrics.counter("journal.rollback.blocks");
+    /**
+     * A rough guess of how much a block data takes up, for {@link #getMemoryUsage()}.
+     */
+    private static final int BLOCK_DATA_BYTES = 128;
+    /**
+     * A rough guess of how much a recorded tile entity takes up, for {@link #getMemoryUsage()}.
+     */
+    private static final int TILE_STATE_BYTES = 1024;
+    // per material ordinal: 0 if not seen yet, 1 if it has no contents worth keeping, 2 if it does
+    private static final byte[] tileMaterials = new byte[Material.values().length];
+    // per material ordinal: 0 if not seen yet, 1 if it is a single block, 2 if it is one half of a door, bed or tall plant
+    private static final byte[] pairedMaterials = new byte[Material.values().length];
+    // the faces of a block that other blocks can hang off or stand on
+    private static final BlockFace[] ATTACHED_FACES = {BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP};
+
+    private final World world;
+    private final boolean bounded;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    private LongIntMap entries = new LongIntMap(1024);
+    private long[] positions = new long[1024];
+    private int[] states = new int[1024];
+    private int size = 0;
+    private List<BlockData> palette = new ArrayList<>();
+    private Map<BlockData, Integer> paletteIndex = new HashMap<>();
+    // entry index -> full state, only for blocks with contents
+    private Map<Integer, BlockState> tileStates = new HashMap<>();
+    private boolean stopped = false;
+
+    private BlockJournal(World world, boolean bounded, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.world = world;
+        this.bounded = bounded;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Starts recording changes to every block in a world.
+     * @param world The world.
+     * @return The journal.
+     */
+    public static BlockJournal start(World world) {
+        return register(new BlockJournal(world, false, 0, 0, 0, 0, 0, 0));
+    }
+
+    /**
+     * Starts recording changes to blocks in an area. Changes outside of the area are ignored.
+     * <p>
+     * loc1 and loc2 must have the same world.
+     * @param loc1 A corner of the area.
+     * @param loc2 Another corner of the area.
+     * @return The journal.
+     */
+    public static BlockJournal start(Location loc1, Location loc2) {
+        if (loc1.getWorld() != loc2.getWorld()) {
+            throw new IllegalArgumentException("Location 1 and location 2's worlds must be the same!");
+        }
+        return register(new BlockJournal(loc1.getWorld(), true,
+                Math.min(loc1.getBlockX(), loc2.getBlockX()), Math.min(loc1.getBlockY(), loc2.getBlockY()), Math.min(loc1.getBlockZ(), loc2.getBlockZ()),
+                Math.max(loc1.getBlockX(), loc2.getBlockX()), Math.max(loc1.getBlockY(), loc2.getBlockY()), Math.max(loc1.getBlockZ(), loc2.getBlockZ())));
+    }
+
+    /**
+     * @param world The world.
+     * @return The journal recording the world, or null if there is none.
+     */
+    public static BlockJournal get(World world) {
+        return journals.get(world.getName());
+    }
+
+    /**
+     * @return Every journal that is recording.
+     */
+    public static Collection<BlockJournal> getJournals() {
+        return journals.values();
+    }
+
+    /**
+     * @return Roughly how many bytes every journal takes up together.
+     */
+    public static long getTotalMemoryUsage() {
+        long total = 0;
+        for (BlockJournal journal : journals.values()) {
+            total += journal.getMemoryUsage();
+        }
+        return total;
+    }
+
+    /**
+     * Records a block as it is now, if it has not been recorded yet. Call this before changing a block from a plugin.
+     * <p>
+     * For chests, signs and other blocks with contents, the contents are recorded as well.
+     * @param block The block about to change.
+     * @return If the block was recorded. False if it was already recorded, is outside the area or the journal is stopped.
+     */
+    public boolean record(Block block) {
+        return record(block.getX(), block.getY(), block.getZ(), block, null);
+    }
+
+    /**
+     * @param state A block state.
+     * @return If the state holds contents that its block data does not, so it must be kept to roll back fully.
+     */
+    public static boolean hasContents(BlockState state) {
+        return state instanceof Container || state instanceof Sign || state instanceof CreatureSpawner || state instanceof Banner
+                || state instanceof Skull || state instanceof CommandBlock || state instanceof Jukebox || state instanceof Beacon;
+    }
+
+    /**
+     * Puts every recorded block back the way it was, spread over several ticks.
+     * <p>
+     * At most {@link BudgetedTask#DEFAULT_BUDGET_MILLIS} milliseconds will be spent every tick.
+     * @return The running rollback. Use {@link RollbackTask#getFuture()} to find out when it is done.
+     */
+    public RollbackTask rollback() {
+        return rollback(BudgetedTask.DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Puts every recorded block back the way it was, spread over several ticks.
+     * <p>
+     * Blocks with contents get their recorded contents back, as described in {@link BlockJournal}.
+     * The journal is emptied straight away and keeps recording, so it is ready for the next round. Players should be kept out of the area until the rollback is done.
+     * @param budgetMillis How many milliseconds can be spent every tick.
+     * @return The running rollback. Use {@link RollbackTask#getFuture()} to find out when it is done.
+     */
+    public RollbackTask rollback(long budgetMillis) {
+        RollbackTask task = takeRollback(budgetMillis);
+        task.start();
+        return task;
+    }
+
+    /**
+     * Puts every recorded block back the way it was, right now.
+     * @return How many blocks were put back.
+     */
+    public int rollbackNow() {
+        return takeRollback(BudgetedTask.DEFAULT_BUDGET_MILLIS).runNow().getBlocksRestored();
+    }
+
+    /**
+     * Forgets every recorded block, keeping the world as it is now.
+     */
+    public void clear() {
+        entries.clear();
+        tileStates.clear();
+        size = 0;
+    }
+
+    /**
+     * Stops recording and forgets every recorded block.
+     */
+    public void stop() {
+        stopped = true;
+        journals.remove(world.getName(), this);
+        entries = new LongIntMap(0);
+        positions = new long[0];
+        states = new int[0];
+        size = 0;
+        palette = new ArrayList<>();
+        paletteIndex = new HashMap<>();
+        tileStates = new HashMap<>();
+    }
+
+    /**
+     * @return If the journal has been stopped.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return The world being recorded.
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return How many blocks have been recorded.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return How many different block datas have been recorded.
+     */
+    public int getPaletteSize() {
+        return palette.size();
+    }
+
+    /**
+     * @return Roughly how many bytes the journal takes up.
+     */
+    public long getMemoryUsage() {
+        return entries.getMemoryUsage() + (long) positions.length * Long.BYTES + (long) states.length * Integer.BYTES
+                + (long) palette.size() * BLOCK_DATA_BYTES + (long) tileStates.size() * TILE_STATE_BYTES;
+    }
+
+    /**
+     * Puts the blocks recorded by a {@link BlockJournal} back, spread over several ticks.
+     * @see BlockJournal#rollback(long)
+     */
+    public static class RollbackTask extends BudgetedTask<RollbackTask> {
+
+        private final World world;
+        private final long[] positions;
+        private final int[] states;
+        private final int size;
+        private final List<BlockData> palette;
+        private final Map<Integer, BlockState> tileStates;
+        private int index = 0;
+
+        private RollbackTask(World world, long[] positions, int[] states, int size, List<BlockData> palette, Map<Integer, BlockState> tileStates, long budgetMillis) {
+            super(budgetMillis);
+            this.world = world;
+            this.positions = positions;
+            this.states = states;
+            this.size = size;
+            this.palette = palette;
+            this.tileStates = tileStates;
+        }
+
+        @Override
+        protected boolean step() {
+            if (index >= size) {
+                return false;
+            }
+            long position = positions[index];
+            // physics are off, so the order blocks are put back in does not matter, and torches or sand do not drop halfway through
+            world.getBlockAt(unpackX(position), unpackY(position), unpackZ(position)).setBlockData(palette.get(states[index]), false);
+            BlockState tileState = tileStates.isEmpty() ? null : tileStates.get(index);
+            if (tileState != null) {
+                tileState.update(true, false);
+            }
+            index++;
+            RESTORED_BLOCKS.increment();
+            return index < size;
+        }
+
+        @Override
+        protected RollbackTask result() {
+            return this;
+        }
+
+        @Override
+        public double getProgress() {
+            return size == 0 ? 1 : (double) index / size;
+        }
+
+        /**
+         * @return How many blocks have been put back so far.
+         */
+        public int getBlocksRestored() {
+            return index;
+        }
+
+        /**
+         * @return How many blocks are being put back.
+         */
+        public int getTotalBlocks() {
+            return size;
+        }
+    }
+
+    /**
+     * Records blocks before they are changed by the game. Registered by GameMaster.
+     * <p>
+     * Everything runs at {@link EventPriority#MONITOR} and skips cancelled events, so only changes that actually happen are recorded.
+     */
+    public static class RecordingListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBreak(BlockBreakEvent e) {
+            recordBroken(e.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPlace(BlockPlaceEvent e) {
+            // the block has already been placed, so the replaced state has the original data
+            recordState(e.getBlockReplacedState());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onMultiPlace(BlockMultiPlaceEvent e) {
+            for (BlockState state : e.getReplacedBlockStates()) {
+                recordState(state);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBurn(BlockBurnEvent e) {
+            recordBroken(e.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onIgnite(BlockIgniteEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onFade(BlockFadeEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onForm(BlockFormEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onSpread(BlockSpreadEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onGrow(BlockGrowEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onDecay(LeavesDecayEvent e) {
+            recordEvent(e);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onFlow(BlockFromToEvent e) {
+            recordBlock(e.getToBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPistonExtend(BlockPistonExtendEvent e) {
+            recordPiston(e.getBlock(), e.getBlocks(), e.getDirection());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPistonRetract(BlockPistonRetractEvent e) {
+            recordPiston(e.getBlock(), e.getBlocks(), e.getDirection());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockExplode(BlockExplodeEvent e) {
+            recordEvent(e);
+            recordBlocks(e.getBlock().getWorld(), e.blockList());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityExplode(EntityExplodeEvent e) {
+            recordBlocks(e.getEntity().getWorld(), e.blockList());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+            recordBlock(e.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBucketEmpty(PlayerBucketEmptyEvent e) {
+            recordBlock(e.getBlockClicked().getRelative(e.getBlockFace()));
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBucketFill(PlayerBucketFillEvent e) {
+            recordBlock(e.getBlockClicked());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onStructureGrow(StructureGrowEvent e) {
+            for (BlockState state : e.getBlocks()) {
+                recordBlock(state.getBlock());
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onWorldUnload(WorldUnloadEvent e) {
+            BlockJournal journal = journals.get(e.getWorld().getName());
+            if (journal != null) {
+                journal.stop();
+            }
+        }
+
+        private static void recordEvent(BlockEvent e) {
+            recordBlock(e.getBlock());
+        }
+
+        private static void recordBlock(Block block) {
+            if (journals.isEmpty()) {
+                return;
+            }
+            BlockJournal journal = journals.get(block.getWorld().getName());
+            if (journal != null) {
+                journal.record(block);
+            }
+        }
+
+        private static void recordBroken(Block block) {
+            if (journals.isEmpty()) {
+                return;
+            }
+            BlockJournal journal = journals.get(block.getWorld().getName());
+            if (journal != null) {
+                journal.recordWithDependents(block);
+            }
+        }
+
+        private static void recordState(BlockState state) {
+            if (journals.isEmpty()) {
+                return;
+            }
+            BlockJournal journal = journals.get(state.getWorld().getName());
+            if (journal != null) {
+                journal.record(state.getX(), state.getY(), state.getZ(), null, state);
+            }
+        }
+
+        private static void recordBlocks(World world, List<Block> blocks) {
+            if (journals.isEmpty()) {
+                return;
+            }
+            BlockJournal journal = journals.get(world.getName());
+            if (journal != null) {
+                for (Block block : blocks) {
+                    journal.recordWithDependents(block);
+                }
+            }
+        }
+
+        private static void recordPiston(Block piston, List<Block> blocks, BlockFace direction) {
+            if (journals.isEmpty()) {
+                return;
+            }
+            BlockJournal journal = journals.get(piston.getWorld().getName());
+            if (journal == null) {
+                return;
+            }
+            journal.record(piston);
+            journal.record(piston.getRelative(direction));
+            // every moved block leaves its spot and lands one block along
+            for (Block block : blocks) {
+                journal.recordWithDependents(block);
+                journal.record(block.getRelative(direction));
+            }
+        }
+    }
+
+    private static BlockJournal register(BlockJournal journal) {
+        String name = journal.world.getName();
+        if (journals.containsKey(name)) {
+            throw new IllegalArgumentException("World " + name + " already has a block journal!");
+        }
+        journals.put(name, journal);
+        return journal;
+    }
+
+    /**
+     * Records a position, reading the block only if no state is given, so blocks that were already recorded cost nothing.
+     */
+    private boolean record(int x, int y, int z, Block block, BlockState given) {
+        if (stopped) {
+            return false;
+        }
+        if (bounded && (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)) {
+            return false;
+        }
+        long position = pack(x, y, z);
+        if (entries.containsKey(position)) {
+            return false;
+        }
+        BlockData original;
+        BlockState tileState = null;
+        if (given != null) {
+            original = given.getBlockData();
+            tileState = hasContents(given) ? given : null;
+        } else {
+            original = block.getBlockData();
+            tileState = readContents(block);
+        }
+        Integer state = paletteIndex.get(original);
+        if (state == null) {
+            state = palette.size();
+            palette.add(original);
+            paletteIndex.put(original, state);
+        }
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            states = Arrays.copyOf(states, size * 2);
+        }
+        positions[size] = position;
+        states[size] = state;
+        if (tileState != null) {
+            tileStates.put(size, tileState);
+        }
+        entries.putIfAbsent(position, size);
+        size++;
+        return true;
+    }
+
+    /**
+     * Records a block about to be removed, and every block that physics will remove along with it without an event.
+     * Neighbours are checked even if the block was already recorded, since something may have been attached to it since.
+     */
+    private void recordWithDependents(Block block) {
+        record(block);
+        recordOtherHalf(block);
+        for (BlockFace face : ATTACHED_FACES) {
+            Block neighbour = block.getRelative(face);
+            Material type = neighbour.getType();
+            // full blocks never pop off, and air or liquids moving in are recorded by their own events
+            if (type.isOccluding() || type == Material.AIR || type == Material.CAVE_AIR || type == Material.VOID_AIR || type == Material.WATER || type == Material.LAVA) {
+                continue;
+            }
+            record(neighbour);
+            recordOtherHalf(neighbour);
+        }
+        Block above = block.getRelative(BlockFace.UP);
+        while (isStacking(above.getType())) {
+            record(above);
+            above = above.getRelative(BlockFace.UP);
+        }
+    }
+
+    /**
+     * Records the other half of a door, bed or tall plant. Whether a material has two halves is remembered, so most blocks never have their data read.
+     */
+    private void recordOtherHalf(Block block) {
+        int material = block.getType().ordinal();
+        if (pairedMaterials[material] == 1) {
+            return;
+        }
+        BlockData data = block.getBlockData();
+        BlockFace other = null;
+        if (data instanceof Bed) {
+            Bed bed = (Bed) data;
+            other = bed.getPart() == Bed.Part.HEAD ? bed.getFacing().getOppositeFace() : bed.getFacing();
+        } else if (data instanceof Bisected && !(data instanceof Stairs) && !(data instanceof TrapDoor)) {
+            // stairs and trapdoors are one block that sits in the top or bottom half
+            other = ((Bisected) data).getHalf() == Bisected.Half.TOP ? BlockFace.DOWN : BlockFace.UP;
+        }
+        pairedMaterials[material] = (byte) (other == null ? 1 : 2);
+        if (other != null) {
+            record(block.getRelative(other));
+        }
+    }
+
+    private static boolean isStacking(Material type) {
+        return type == Material.CACTUS || type == Material.SUGAR_CANE || type == Material.KELP || type == Material.KELP_PLANT;
+    }
+
+    private RollbackTask takeRollback(long budgetMillis) {
+        RollbackTask task = new RollbackTask(world, positions, states, size, palette, tileStates, budgetMillis);
+        // the task keeps the old arrays, so the journal can start the next round without waiting for it
+        entries = new LongIntMap(Math.max(1024, size));
+        positions = new long[positions.length];
+        states = new int[states.length];
+        size = 0;
+        palette = new ArrayList<>(palette);
+        tileStates = new HashMap<>();
+        return task;
+    }
+
+    /**
+     * Takes a copy of a block's state if it has contents. Whether a material has contents is remembered, so most blocks never have their state copied.
+     */
+    private static BlockState readContents(Block block) {
+        int material = block.getType().ordinal();
+        if (tileMaterials[material] == 1) {
+            return null;
+        }
+        BlockState state = block.getState();
+        boolean contents = hasContents(state);
+        tileMaterials[material] = (byte) (contents ? 2 : 1);
+        return contents ? state : null;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    private static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    private static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    private static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+}
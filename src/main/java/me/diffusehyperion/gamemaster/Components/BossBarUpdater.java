@@ -0,0 +1,158 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BossBar;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Sits in front of a bossbar, and only sends changes that players would actually see.
+ * <p>
+ * Progress is only sent once it has moved by at least the visible step, and titles only when their text changed.
+ * Changes are queued and sent together once per tick, so several changes in one tick become one update packet per viewer.
+ */
+public class BossBarUpdater {
+
+    /**
+     * The default smallest change in progress worth sending. The bar is 182 pixels wide on screen, so smaller changes cannot be seen.
+     */
+    public static final double DEFAULT_PROGRESS_STEP = 1D / 182;
+
+    private static final Set<BossBarUpdater> dirty = new LinkedHashSet<>();
+    private static boolean flushScheduled = false;
+    private static long totalRequested = 0;
+    private static long totalSent = 0;
+
+    private final BossBar bossbar;
+    private final double progressStep;
+    private double sentProgress;
+    private String sentTitle;
+    private double pendingProgress;
+    private String pendingTitle;
+    private long requested = 0;
+    private long sent = 0;
+
+    /**
+     * @param bossbar The bossbar to update.
+     * @param progressStep The smallest change in progress worth sending.
+     */
+    public BossBarUpdater(BossBar bossbar, double progressStep) {
+        this.bossbar = bossbar;
+        this.progressStep = progressStep;
+        this.sentProgress = bossbar.getProgress();
+        this.sentTitle = bossbar.getTitle();
+        this.pendingProgress = sentProgress;
+        this.pendingTitle = sentTitle;
+    }
+
+    /**
+     * Uses {@link #DEFAULT_PROGRESS_STEP}.
+     * @param bossbar The bossbar to update.
+     */
+    public BossBarUpdater(BossBar bossbar) {
+        this(bossbar, DEFAULT_PROGRESS_STEP);
+    }
+
+    /**
+     * Queues a new progress. Reaching 0 or 1 is always sent.
+     * @param progress The new progress, from 0 to 1.
+     */
+    public void setProgress(double progress) {
+        pendingProgress = progress;
+        boolean visible = Math.abs(progress - sentProgress) >= progressStep
+                || (progress != sentProgress && (progress == 0 || progress == 1));
+        queue(visible);
+    }
+
+    /**
+     * Queues a new title.
+     * @param title The new title.
+     */
+    public void setTitle(String title) {
+        pendingTitle = title;
+        queue(!title.equals(sentTitle));
+    }
+
+    /**
+     * Sends any queued changes right now, instead of waiting for the end of the tick.
+     */
+    public void flush() {
+        dirty.remove(this);
+        send();
+    }
+
+    /**
+     * @return The bossbar being updated.
+     */
+    public BossBar getBossbar() {
+        return bossbar;
+    }
+
+    /**
+     * @return How many changes this updater actually sent to the bossbar.
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return How many changes this updater held back, because they could not be seen or were merged into another update.
+     */
+    public long getSuppressed() {
+        return requested - sent;
+    }
+
+    /**
+     * @return How many changes every updater sent in total.
+     */
+    public static long getTotalSent() {
+        return totalSent;
+    }
+
+    /**
+     * @return How many changes every updater held back in total.
+     */
+    public static long getTotalSuppressed() {
+        return totalRequested - totalSent;
+    }
+
+    private void queue(boolean visible) {
+        requested++;
+        totalRequested++;
+        // if this is already waiting to be sent this tick, the change is merged into that update
+        if (!visible || !dirty.add(this)) {
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, BossBarUpdater::flushAll);
+        }
+    }
+
+    private void send() {
+        if (pendingProgress != sentProgress && (Math.abs(pendingProgress - sentProgress) >= progressStep || pendingProgress == 0 || pendingProgress == 1)) {
+            sentProgress = pendingProgress;
+            bossbar.setProgress(pendingProgress);
+            sent++;
+            totalSent++;
+        }
+        if (!pendingTitle.equals(sentTitle)) {
+            sentTitle = pendingTitle;
+            bossbar.setTitle(pendingTitle);
+            sent++;
+            totalSent++;
+        }
+    }
+
+    private static void flushAll() {
+        flushScheduled = false;
+        BossBarUpdater[] updaters = dirty.toArray(new BossBarUpdater[0]);
+        dirty.clear();
+        for (BossBarUpdater updater : updaters) {
+            updater.send();
+        }
+    }
+}
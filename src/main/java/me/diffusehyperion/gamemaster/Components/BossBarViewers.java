@@ -0,0 +1,158 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps a ready-made list of the names of the players who can see a bossbar, for {@link GamePlayer.timerReplacement#PLAYERS_SHOWN}.
+ * <p>
+ * The list is only rebuilt when players are added or removed through {@link GamePlayer#showBossbarToAll(BossBar)}, {@link GamePlayer#addToBossbar(BossBar, Player)},
+ * {@link GamePlayer#removeFromBossbar(BossBar, Player)}, or when they quit. Changes made straight on the bossbar are picked up by {@link #resync()}.
+ */
+public class BossBarViewers {
+
+    private static final Map<BossBar, BossBarViewers> tracked = new IdentityHashMap<>();
+
+    private final BossBar bossbar;
+    private final Map<UUID, String> names = new LinkedHashMap<>();
+    private int maxNames;
+    private String joined = "";
+    private boolean dirty = true;
+
+    private BossBarViewers(BossBar bossbar, int maxNames) {
+        this.bossbar = bossbar;
+        this.maxNames = maxNames;
+        resync();
+    }
+
+    /**
+     * Starts keeping a name list for a bossbar.
+     * @param bossbar The bossbar.
+     * @param maxNames The most names to show before the rest are summed up as "and X more". Set to 0 or less to show every name.
+     * @return The name list.
+     */
+    public static BossBarViewers track(BossBar bossbar, int maxNames) {
+        return tracked.computeIfAbsent(bossbar, bar -> new BossBarViewers(bar, maxNames));
+    }
+
+    /**
+     * Stops keeping a name list for a bossbar.
+     * @param bossbar The bossbar.
+     */
+    public static void untrack(BossBar bossbar) {
+        tracked.remove(bossbar);
+    }
+
+    /**
+     * @param bossbar The bossbar.
+     * @return The bossbar's name list, or null if it is not tracked.
+     */
+    public static BossBarViewers of(BossBar bossbar) {
+        return tracked.get(bossbar);
+    }
+
+    static void added(BossBar bossbar, Player player) {
+        BossBarViewers viewers = tracked.get(bossbar);
+        if (viewers != null && !player.getDisplayName().equals(viewers.names.put(player.getUniqueId(), player.getDisplayName()))) {
+            viewers.dirty = true;
+        }
+    }
+
+    static void removed(BossBar bossbar, Player player) {
+        BossBarViewers viewers = tracked.get(bossbar);
+        if (viewers != null && viewers.names.remove(player.getUniqueId()) != null) {
+            viewers.dirty = true;
+        }
+    }
+
+    /**
+     * Rebuilds the name list from the bossbar's current players. This picks up players added straight to the bossbar, and display name changes.
+     */
+    public void resync() {
+        List<Player> players = bossbar.getPlayers();
+        boolean same = players.size() == names.size();
+        if (same) {
+            int i = 0;
+            for (Map.Entry<UUID, String> entry : names.entrySet()) {
+                Player player = players.get(i++);
+                if (!entry.getKey().equals(player.getUniqueId()) || !entry.getValue().equals(player.getDisplayName())) {
+                    same = false;
+                    break;
+                }
+            }
+        }
+        if (same) {
+            return;
+        }
+        names.clear();
+        for (Player player : players) {
+            names.put(player.getUniqueId(), player.getDisplayName());
+        }
+        dirty = true;
+    }
+
+    /**
+     * Change how many names are shown.
+     * @param maxNames The most names to show before the rest are summed up as "and X more". Set to 0 or less to show every name.
+     */
+    public void setMaxNames(int maxNames) {
+        this.maxNames = maxNames;
+        dirty = true;
+    }
+
+    /**
+     * @return How many players can see the bossbar.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return The names of every player who can see the bossbar, separated by commas.
+     */
+    public String getJoined() {
+        if (dirty) {
+            dirty = false;
+            StringBuilder builder = new StringBuilder();
+            int shown = 0;
+            for (String name : names.values()) {
+                if (maxNames > 0 && shown == maxNames) {
+                    builder.append(" and ").append(names.size() - shown).append(" more");
+                    break;
+                }
+                if (shown > 0) {
+                    builder.append(", ");
+                }
+                builder.append(name);
+                shown++;
+            }
+            joined = builder.toString();
+        }
+        return joined;
+    }
+
+    /**
+     * Removes players from every tracked bossbar when they quit.
+     */
+    public static class QuitListener implements Listener {
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void playerQuit(PlayerQuitEvent e) {
+            for (BossBarViewers viewers : tracked.values()) {
+                if (viewers.names.remove(e.getPlayer().getUniqueId()) != null) {
+                    viewers.bossbar.removePlayer(e.getPlayer());
+                    viewers.dirty = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.ConfigEditor;
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps server config files, such as server.properties, bukkit.yml and spigot.yml, loaded in memory.
+ * <p>
+ * Each file is read once, and lookups are served from memory after that. A background thread watches the files' folders,
+ * and a file is only read again once it has been changed on disk. If the folders cannot be watched, the file's size and last modified time are checked instead.
+ * <p>
+ * Values can be changed with {@link #set(Map)}, which only touches the lines holding them. Other edits can be queued with {@link #edit(UnaryOperator)}, and {@link #save()} writes them all at once.
+ * The file is written to a temporary file first and then moved over the original, so a crash cannot leave it half written.
+ */
+public class ConfigStore {
+
+    /**
+     * How a config file is laid out.
+     */
+    public enum Format {
+        PROPERTIES(StandardCharsets.ISO_8859_1),
+        YAML(StandardCharsets.UTF_8);
+
+        private final Charset charset;
+
+        Format(Charset charset) {
+            this.charset = charset;
+        }
+    }
+
+    private static final Map<Path, ConfigStore> stores = new ConcurrentHashMap<>();
+    private static final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+    private static WatchService watcher;
+    private static boolean watchFailed = false;
+
+    private final Path path;
+    private final Format format;
+    private final List<UnaryOperator<String>> pendingEdits = new ArrayList<>();
+    private volatile boolean stale = true;
+    private volatile boolean watched = false;
+    private long loadedModified = -1;
+    private long loadedSize = -1;
+    private String content;
+    private Properties properties;
+    private YamlConfiguration yaml;
+
+    private ConfigStore(Path path, Format format) {
+        this.path = path;
+        this.format = format;
+    }
+
+    /**
+     * @return The store for the server's server.properties.
+     */
+    public static ConfigStore serverProperties() {
+        return of(new File(Bukkit.getWorldContainer(), "server.properties"));
+    }
+
+    /**
+     * @return The store for the server's bukkit.yml.
+     */
+    public static ConfigStore bukkitYML() {
+        return of(new File("bukkit.yml"));
+    }
+
+    /**
+     * @return The store for the server's spigot.yml.
+     */
+    public static ConfigStore spigotYML() {
+        return of(new File("spigot.yml"));
+    }
+
+    /**
+     * Get the store for a config file. Files ending in .properties are read as properties, and everything else as YAML.
+     * @param file The config file.
+     * @return The store for the file.
+     */
+    public static ConfigStore of(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Format format = path.getFileName().toString().endsWith(".properties") ? Format.PROPERTIES : Format.YAML;
+        return stores.computeIfAbsent(path, p -> {
+            ConfigStore store = new ConfigStore(p, format);
+            store.watched = watch(p.getParent());
+            return store;
+        });
+    }
+
+    /**
+     * Read a value from the file.
+     * @param key The key to read. YAML keys use dots to separate sections. (Example: settings.allow-end)
+     * @return The value, or null if it is not in the file.
+     */
+    public synchronized String get(String key) throws IOException, InvalidConfigurationException {
+        ensureLoaded();
+        if (format == Format.PROPERTIES) {
+            return properties.getProperty(key);
+        }
+        return yaml.getString(key);
+    }
+
+    /**
+     * @return The whole file, as it is on disk. Queued edits are not included.
+     */
+    public synchronized String getContent() throws IOException, InvalidConfigurationException {
+        ensureLoaded();
+        return content;
+    }
+
+    /**
+     * Changes several values, and writes the file once if any of them were different.
+     * <p>
+     * Comments, ordering and line terminators are kept. Keys that are not in the file are added.
+     * Any edits already queued with {@link #edit(UnaryOperator)} are written too.
+     * @param values The keys and their new values. YAML keys use dots to separate sections. (Example: settings.allow-end)
+     * @return The keys that had a different value, and were changed.
+     */
+    public synchronized Set<String> set(Map<String, String> values) throws IOException, InvalidConfigurationException {
+        ensureLoaded();
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!entry.getValue().equals(get(entry.getKey()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (changes.isEmpty() && pendingEdits.isEmpty()) {
+            return Collections.emptySet();
+        }
+        ConfigEditor.Format editorFormat = format == Format.PROPERTIES ? ConfigEditor.Format.PROPERTIES : ConfigEditor.Format.YAML;
+        edit(content -> {
+            ConfigEditor editor = ConfigEditor.of(editorFormat, content);
+            editor.setAll(changes);
+            return editor.getContent();
+        });
+        save();
+        return new LinkedHashSet<>(changes.keySet());
+    }
+
+    /**
+     * Changes one value. See {@link #set(Map)}.
+     * @param key The key.
+     * @param value The new value.
+     * @return If the value was different, and was changed.
+     */
+    public boolean set(String key, String value) throws IOException, InvalidConfigurationException {
+        return !set(Collections.singletonMap(key, value)).isEmpty();
+    }
+
+    /**
+     * Queues an edit to the file. Nothing is written until {@link #save()} is called.
+     * @param edit Takes the file's content, and returns the new content.
+     */
+    public synchronized void edit(UnaryOperator<String> edit) {
+        pendingEdits.add(edit);
+    }
+
+    /**
+     * Applies every queued edit, and writes the file once if anything changed.
+     * @return If the file was written.
+     */
+    public synchronized boolean save() throws IOException, InvalidConfigurationException {
+        ensureLoaded();
+        String newContent = content;
+        for (UnaryOperator<String> edit : pendingEdits) {
+            newContent = edit.apply(newContent);
+        }
+        pendingEdits.clear();
+        if (newContent.equals(content)) {
+            return false;
+        }
+        FileIO.write(path, newContent, format.charset);
+        parse(newContent);
+        // remember what was just written, so the watcher seeing this write doesn't cause the file to be read again
+        loadedModified = Files.getLastModifiedTime(path).toMillis();
+        loadedSize = Files.size(path);
+        return true;
+    }
+
+    /**
+     * Forgets what was loaded. The file will be checked again on the next lookup.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * @return The file this store is for.
+     */
+    public File getFile() {
+        return path.toFile();
+    }
+
+    /**
+     * Forgets what was loaded for every file.
+     */
+    public static void invalidateAll() {
+        for (ConfigStore store : stores.values()) {
+            store.invalidate();
+        }
+    }
+
+    /**
+     * Stops watching config files. Lookups after this check the files' last modified time instead.
+     */
+    public static synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        watcher = null;
+        watchFailed = true;
+        watchedFolders.clear();
+        for (ConfigStore store : stores.values()) {
+            store.watched = false;
+        }
+    }
+
+    private void ensureLoaded() throws IOException, InvalidConfigurationException {
+        if (!stale && watched) {
+            return;
+        }
+        // cleared before checking the file, so a change seen by the watcher while loading isn't lost
+        stale = false;
+        long modified;
+        long size;
+        try {
+            modified = Files.getLastModifiedTime(path).toMillis();
+            size = Files.size(path);
+        } catch (NoSuchFileException e) {
+            stale = true;
+            throw new IOException("Config file " + path + " does not exist!", e);
+        }
+        // the watcher marks the file stale when it changes, but that might have been our own save
+        if (content != null && modified == loadedModified && size == loadedSize) {
+            return;
+        }
+        try {
+            parse(FileIO.read(path, format.charset));
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        loadedModified = modified;
+        loadedSize = size;
+    }
+
+    private void parse(String newContent) throws IOException, InvalidConfigurationException {
+        if (format == Format.PROPERTIES) {
+            Properties newProperties = new Properties();
+            newProperties.load(new StringReader(newContent));
+            properties = newProperties;
+        } else {
+            YamlConfiguration newYaml = new YamlConfiguration();
+            newYaml.loadFromString(newContent);
+            yaml = newYaml;
+        }
+        content = newContent;
+    }
+
+    private static synchronized boolean watch(Path folder) {
+        if (watchFailed) {
+            return false;
+        }
+        try {
+            if (watcher == null) {
+                watcher = FileSystems.getDefault().newWatchService();
+                Thread thread = new Thread(ConfigStore::watchLoop, "GameMaster-ConfigWatcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if (!watchedFolders.containsValue(folder)) {
+                WatchKey key = folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedFolders.put(key, folder);
+            }
+            return true;
+        } catch (IOException e) {
+            Bukkit.getLogger().warning("Could not watch " + folder + " for config changes, checking last modified times instead: " + e.getMessage());
+            watchFailed = true;
+            return false;
+        }
+    }
+
+    private static void watchLoop() {
+        WatchService service = watcher;
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path folder = watchedFolders.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateAll();
+                } else if (folder != null) {
+                    ConfigStore store = stores.get(folder.resolve((Path) event.context()));
+                    if (store != null) {
+                        store.invalidate();
+                    }
+                }
+            }
+            key.reset();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import me.diffusehyperion.gamemaster.Utility.RetryPolicy;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldInitEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Worlds that are thrown away after a match, so they never save to disk.
+ * <p>
+ * An ephemeral world has autosave turned off, and its chunks are not saved when they unload or when the world unloads.
+ * If a scratch directory is set, such as a tmpfs mount, the world's files are kept there and the world container only holds a link to them.
+ * <p>
+ * Every ephemeral world is written down in a file in the plugin's folder until its files are deleted.
+ * They are deleted when GameMaster disables, and anything left behind by a crash is deleted by {@link #cleanUp(File)} on the next boot.
+ */
+public class EphemeralWorlds {
+
+    /**
+     * The name of the file in the plugin's folder.
+     */
+    public static final String FILE_NAME = "ephemeral-worlds.properties";
+
+    /**
+     * The system property read for the default scratch directory. (Example: -Dgamemaster.scratch-dir=/dev/shm/gamemaster)
+     */
+    public static final String SCRATCH_PROPERTY = "gamemaster.scratch-dir";
+
+    private static final Metrics.Counter CREATED = Metrics.counter("world.ephemeral.created");
+    private static final RetryPolicy SHUTDOWN_POLICY = new RetryPolicy(1, 0, 1);
+
+    private static File scratchDirectory = System.getProperty(SCRATCH_PROPERTY) == null ? null : new File(System.getProperty(SCRATCH_PROPERTY));
+    // world name -> the folder holding its files
+    private static final Map<String, Path> worlds = new HashMap<>();
+    // folder -> world name, for every folder that has not been deleted yet
+    private static final Properties registry = new Properties();
+    private static File registryFile;
+
+    /**
+     * Sets where the files of new ephemeral worlds are kept. It should be on the same machine, ideally in memory. (Example: /dev/shm/gamemaster)
+     * <p>
+     * By default, this is the {@link #SCRATCH_PROPERTY} system property.
+     * @param directory The scratch directory, or null to keep ephemeral worlds in the world container like other worlds.
+     */
+    public static void setScratchDirectory(File directory) {
+        scratchDirectory = directory;
+    }
+
+    /**
+     * @return The scratch directory, or null if ephemeral worlds are kept in the world container.
+     */
+    public static File getScratchDirectory() {
+        return scratchDirectory;
+    }
+
+    /**
+     * Creates an ephemeral world.
+     * <p>
+     * If the world is already loaded, it is returned as it is, ephemeral or not.
+     * @param creator The settings of the world.
+     * @return The created world.
+     * @throws IllegalArgumentException If the world is not loaded, but a folder with its name is in the world container.
+     */
+    public static World createWorld(WorldCreator creator) throws IOException {
+        String name = creator.name();
+        World existing = Bukkit.getWorld(name);
+        if (existing != null) {
+            return existing;
+        }
+        Path link = new File(Bukkit.getWorldContainer(), name).toPath();
+        if (Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IllegalArgumentException("A folder for " + name + " already exists in the world container");
+        }
+        Path folder = link.toAbsolutePath();
+        if (scratchDirectory != null) {
+            Path target = scratchDirectory.toPath().resolve(name + "-" + System.nanoTime()).toAbsolutePath();
+            Files.createDirectories(target);
+            try {
+                Files.createSymbolicLink(link, target);
+                folder = target;
+            } catch (IOException | UnsupportedOperationException e) {
+                Bukkit.getLogger().warning("Could not link " + name + " to the scratch directory, keeping it in the world container: " + e.getMessage());
+                Files.deleteIfExists(target);
+            }
+        }
+        register(folder, name);
+        // the world's autosave is turned off by SaveListener as soon as it exists, before spawn chunks are generated
+        worlds.put(name, folder);
+        World world = creator.createWorld();
+        if (world == null) {
+            worlds.remove(name);
+            return null;
+        }
+        world.setAutoSave(false);
+        CREATED.increment();
+        return world;
+    }
+
+    /**
+     * @param worldName The name of a world.
+     * @return If the world is loaded and ephemeral.
+     */
+    public static boolean isEphemeral(String worldName) {
+        return worlds.containsKey(worldName);
+    }
+
+    /**
+     * @param world A world.
+     * @return If the world is ephemeral.
+     */
+    public static boolean isEphemeral(World world) {
+        return isEphemeral(world.getName());
+    }
+
+    /**
+     * @param worldName The name of a loaded ephemeral world.
+     * @return The folder holding its files, which is in the scratch directory if one was set, or null if the world is not ephemeral.
+     */
+    public static Path getFolder(String worldName) {
+        return worlds.get(worldName);
+    }
+
+    /**
+     * @param folder A world folder, after following any link to it.
+     * @return If the folder belongs to an ephemeral world.
+     */
+    public static synchronized boolean isRegistered(Path folder) {
+        return registry.containsKey(folder.toAbsolutePath().toString());
+    }
+
+    /**
+     * Forgets a folder once it has been deleted, so it is not cleaned up again on the next boot. This is done by {@link WorldDeletion}.
+     * @param folder The deleted folder.
+     */
+    public static synchronized void forget(Path folder) {
+        if (registry.remove(folder.toAbsolutePath().toString()) != null) {
+            saveRegistry();
+        }
+    }
+
+    /**
+     * Unloads and deletes every ephemeral world, without saving. This is done by GameMaster when it disables, before the server saves its worlds.
+     * <p>
+     * Players in those worlds are moved to the spawn of a world that is not ephemeral first. Worlds that cannot be deleted now are deleted on the next boot.
+     * @return How many worlds were deleted.
+     */
+    public static int deleteAll() {
+        World fallback = null;
+        for (World world : Bukkit.getWorlds()) {
+            if (!isEphemeral(world)) {
+                fallback = world;
+                break;
+            }
+        }
+        int deleted = 0;
+        for (String name : new ArrayList<>(worlds.keySet())) {
+            World world = Bukkit.getWorld(name);
+            if (world != null && fallback != null) {
+                Location spawn = fallback.getSpawnLocation();
+                for (Player player : world.getPlayers()) {
+                    player.teleport(spawn);
+                }
+            }
+            WorldDeletion.Result result = WorldDeletion.deleteWorld(name, SHUTDOWN_POLICY);
+            if (result.isSuccess()) {
+                deleted++;
+            } else {
+                Bukkit.getLogger().log(Level.WARNING, result + ", it will be deleted on the next boot.", result.getError());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the files of ephemeral worlds left behind by a crash. This is done by GameMaster when it loads, before any world is loaded.
+     * <p>
+     * Links in the world container are removed straight away, so the names can be used again. The files themselves are deleted in the background.
+     * @param dataFolder The plugin's folder.
+     * @return How many worlds were left behind.
+     */
+    public static int cleanUp(File dataFolder) {
+        Properties leftovers = new Properties();
+        synchronized (EphemeralWorlds.class) {
+            registryFile = new File(dataFolder, FILE_NAME);
+            if (!registryFile.exists()) {
+                return 0;
+            }
+            try {
+                registry.load(new StringReader(FileIO.read(registryFile.toPath(), StandardCharsets.ISO_8859_1)));
+            } catch (IOException e) {
+                Bukkit.getLogger().warning("Could not read " + FILE_NAME + ", ephemeral worlds from last time are not cleaned up: " + e.getMessage());
+                return 0;
+            }
+            leftovers.putAll(registry);
+        }
+        for (String key : leftovers.stringPropertyNames()) {
+            Path folder = new File(key).toPath();
+            File inContainer = new File(Bukkit.getWorldContainer(), leftovers.getProperty(key));
+            try {
+                if (Files.isSymbolicLink(inContainer.toPath())) {
+                    Path target = Files.readSymbolicLink(inContainer.toPath());
+                    if (!Files.exists(target) || Files.isSameFile(target, folder)) {
+                        Files.delete(inContainer.toPath());
+                    }
+                } else if (inContainer.toPath().toAbsolutePath().equals(folder)) {
+                    // kept in the world container, so it is left for WorldDeletion.sweepTombstones like a deleted world
+                    if (inContainer.exists()) {
+                        WorldDeletion.tombstone(inContainer, RetryPolicy.DEFAULT);
+                    }
+                    forget(folder);
+                    continue;
+                }
+            } catch (IOException e) {
+                Bukkit.getLogger().warning("Could not clean up ephemeral world " + inContainer.getName() + ": " + e.getMessage());
+                continue;
+            }
+            Path leftover = folder;
+            IOExecutor.get().execute(() -> {
+                try {
+                    FileUtils.deleteDirectory(leftover.toFile());
+                    forget(leftover);
+                } catch (IOException e) {
+                    Bukkit.getLogger().warning("Could not delete " + leftover + ", trying again on the next boot: " + e.getMessage());
+                }
+            });
+        }
+        return leftovers.size();
+    }
+
+    /**
+     * Reads how many bytes this server has written to storage, to compare matches with and without ephemeral worlds.
+     * <p>
+     * Writes to an in-memory scratch directory are not counted. This only works on Linux.
+     * @return The bytes written since the server started, or -1 if that is not known.
+     */
+    public static long getProcessBytesWritten() {
+        File io = new File("/proc/self/io");
+        if (!io.canRead()) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(io.toPath(), StandardCharsets.ISO_8859_1)) {
+                if (line.startsWith("write_bytes:")) {
+                    return Long.parseLong(line.substring("write_bytes:".length()).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return -1;
+    }
+
+    private static synchronized void register(Path folder, String name) {
+        registry.setProperty(folder.toAbsolutePath().toString(), name);
+        saveRegistry();
+    }
+
+    private static synchronized void saveRegistry() {
+        if (registryFile == null) {
+            registryFile = new File(plugin.getDataFolder(), FILE_NAME);
+        }
+        try {
+            if (registry.isEmpty()) {
+                Files.deleteIfExists(registryFile.toPath());
+                return;
+            }
+            StringWriter writer = new StringWriter();
+            registry.store(writer, "Ephemeral worlds whose files have not been deleted yet. GameMaster deletes these on the next boot.");
+            registryFile.getParentFile().mkdirs();
+            FileIO.write(registryFile.toPath(), writer.toString(), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            Bukkit.getLogger().warning("Could not save " + FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops ephemeral worlds from saving. This is registered by GameMaster.
+     */
+    public static class SaveListener implements Listener {
+        @EventHandler
+        public void onWorldInit(WorldInitEvent e) {
+            if (isEphemeral(e.getWorld())) {
+                e.getWorld().setAutoSave(false);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onChunkUnload(ChunkUnloadEvent e) {
+            if (isEphemeral(e.getWorld())) {
+                e.setSaveChunk(false);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onWorldUnload(WorldUnloadEvent e) {
+            worlds.remove(e.getWorld().getName());
+        }
+    }
+}
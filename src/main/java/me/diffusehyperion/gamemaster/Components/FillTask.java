@@ -0,0 +1,186 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Fills an area with blocks over several ticks.
+ * <p>
+ * The area is split into chunk-aligned sections, which are filled one after another, so only a few chunks are touched every tick.
+ * Blocks that already have the right type are skipped.
+ * @see GameWorld#fillBlocksAsync(Location, Location, Material, Material, FillMode, long)
+ */
+public class FillTask extends BudgetedTask<FillTask> {
+
+    /**
+     * How an area should be filled.
+     */
+    public enum FillMode {
+        /**
+         * Fill every block in the area.
+         */
+        FILL,
+        /**
+         * Fill the outer shell of the area, and replace everything inside with air.
+         */
+        HOLLOW,
+        /**
+         * Only fill the outer shell of the area. Everything inside is left alone.
+         */
+        OUTLINE
+    }
+
+    private final World world;
+    private final Material blocktype;
+    private final Material replace;
+    private final FillMode mode;
+
+    private final int startX, startY, startZ;
+    private final int endX, endY, endZ;
+    private final int minChunkX, minChunkZ;
+    private final int chunksX, sections;
+    private final long totalBlocks;
+
+    private int section = -1;
+    private int sectionStartX, sectionEndX, sectionStartZ, sectionEndZ;
+    private int x, y, z;
+
+    private long blocksProcessed = 0;
+    private long blocksChanged = 0;
+
+    /**
+     * Creates a fill task. Use {@link #start()} to run it over several ticks, or {@link #runNow()} to run it straight away.
+     * <p>
+     * loc1 and loc2 must have the same world.
+     * @param loc1 A corner of the area being filled.
+     * @param loc2 Another corner of the area being filled.
+     * @param blocktype The type of block to fill the area with.
+     * @param replace Only blocks of this type will be replaced. Set to null to replace every block.
+     * @param mode How the area should be filled.
+     * @param budgetMillis How many milliseconds the task is allowed to use per tick.
+     */
+    public FillTask(Location loc1, Location loc2, Material blocktype, Material replace, FillMode mode, long budgetMillis) {
+        super(budgetMillis);
+        if (loc1.getWorld() != loc2.getWorld()) {
+            throw new IllegalArgumentException("Location 1 and location 2's worlds must be the same!");
+        }
+        this.world = loc1.getWorld();
+        assert world != null;
+        this.blocktype = blocktype;
+        this.replace = replace;
+        this.mode = mode;
+
+        startX = Math.min(loc1.getBlockX(), loc2.getBlockX());
+        startY = Math.min(loc1.getBlockY(), loc2.getBlockY());
+        startZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
+        endX = Math.max(loc1.getBlockX(), loc2.getBlockX());
+        endY = Math.max(loc1.getBlockY(), loc2.getBlockY());
+        endZ = Math.max(loc1.getBlockZ(), loc2.getBlockZ());
+
+        minChunkX = startX >> 4;
+        minChunkZ = startZ >> 4;
+        chunksX = (endX >> 4) - minChunkX + 1;
+        sections = chunksX * ((endZ >> 4) - minChunkZ + 1);
+        totalBlocks = (long) (endX - startX + 1) * (endY - startY + 1) * (endZ - startZ + 1);
+
+        nextSection();
+    }
+
+    @Override
+    protected boolean step() {
+        if (section >= sections) {
+            return false;
+        }
+        boolean shell = x == startX || x == endX || y == startY || y == endY || z == startZ || z == endZ;
+        if (shell || mode != FillMode.OUTLINE) {
+            setBlock(world.getBlockAt(x, y, z), shell || mode == FillMode.FILL ? blocktype : Material.AIR);
+            advance(1);
+        } else {
+            // only the blocks on the far side of this row are on the shell, so skip straight to them
+            int skipTo = Math.min(sectionEndX, endX - 1);
+            advance(skipTo - x + 1);
+        }
+        return section < sections;
+    }
+
+    @Override
+    protected FillTask result() {
+        return this;
+    }
+
+    @Override
+    public double getProgress() {
+        return totalBlocks == 0 ? 1 : (double) blocksProcessed / totalBlocks;
+    }
+
+    /**
+     * @return How many blocks are in the area.
+     */
+    public long getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    /**
+     * @return How many blocks have been checked so far.
+     */
+    public long getBlocksProcessed() {
+        return blocksProcessed;
+    }
+
+    /**
+     * @return How many blocks were actually changed so far.
+     */
+    public long getBlocksChanged() {
+        return blocksChanged;
+    }
+
+    private void setBlock(Block block, Material type) {
+        Material current = block.getType();
+        if (current == type) {
+            return;
+        }
+        if (replace != null && current != replace) {
+            return;
+        }
+        block.setType(type);
+        blocksChanged++;
+    }
+
+    /**
+     * Moves the cursor along the current row, wrapping into the next row, layer or section where needed.
+     */
+    private void advance(int blocks) {
+        blocksProcessed += blocks;
+        x += blocks;
+        if (x <= sectionEndX) {
+            return;
+        }
+        x = sectionStartX;
+        if (++z <= sectionEndZ) {
+            return;
+        }
+        z = sectionStartZ;
+        if (++y <= endY) {
+            return;
+        }
+        nextSection();
+    }
+
+    private void nextSection() {
+        if (++section >= sections) {
+            return;
+        }
+        int chunkX = minChunkX + section % chunksX;
+        int chunkZ = minChunkZ + section / chunksX;
+        sectionStartX = Math.max(startX, chunkX << 4);
+        sectionEndX = Math.min(endX, (chunkX << 4) + 15);
+        sectionStartZ = Math.max(startZ, chunkZ << 4);
+        sectionEndZ = Math.min(endZ, (chunkZ << 4) + 15);
+        x = sectionStartX;
+        y = startY;
+        z = sectionStartZ;
+    }
+}
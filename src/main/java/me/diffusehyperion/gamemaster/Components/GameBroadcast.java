@@ -0,0 +1,162 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Sound;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Sends sounds, titles, action bars and chat messages to an {@link Audience}.
+ * <p>
+ * The send methods go out straight away. The queue methods wait until the next tick, and merge what was queued in the meantime:
+ * repeated sounds and messages to the same audience are only sent once, and only the last title or action bar for an audience is shown.
+ */
+public class GameBroadcast {
+
+    private static final Map<Object, Runnable> queued = new LinkedHashMap<>();
+    private static boolean flushScheduled = false;
+    private static final Location reusableLocation = new Location(null, 0, 0, 0);
+
+    /**
+     * Play a sound to every player in an audience, at their own location.
+     * @param audience Who to play the sound to.
+     * @param sound Sound to be played.
+     * @param volume Volume for the sound to be played at. See {@link GamePlayer#playSoundToAll(Sound, Float, Float)}.
+     * @param pitch Pitch/Speed for the sound to be played at.
+     */
+    public static void sendSound(Audience audience, Sound sound, float volume, float pitch) {
+        for (Player p : audience.getMembers()) {
+            // reusing one location saves creating a new one for every player
+            p.playSound(p.getLocation(reusableLocation), sound, volume, pitch);
+        }
+        reusableLocation.setWorld(null);
+    }
+
+    /**
+     * Show a title to every player in an audience.
+     * @param audience Who to show the title to.
+     * @param title The title. Can be null.
+     * @param subtitle The subtitle. Can be null.
+     * @param fadeIn Ticks to fade in.
+     * @param stay Ticks to stay.
+     * @param fadeOut Ticks to fade out.
+     */
+    public static void sendTitle(Audience audience, String title, String subtitle, int fadeIn, int stay, int fadeOut) {
+        for (Player p : audience.getMembers()) {
+            p.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
+        }
+    }
+
+    /**
+     * Show an action bar message to every player in an audience.
+     * @param audience Who to show the message to.
+     * @param message The message.
+     */
+    public static void sendActionBar(Audience audience, String message) {
+        BaseComponent[] components = TextComponent.fromLegacyText(message);
+        for (Player p : audience.getMembers()) {
+            p.spigot().sendMessage(ChatMessageType.ACTION_BAR, components);
+        }
+    }
+
+    /**
+     * Send a chat message to every player in an audience.
+     * @param audience Who to send the message to.
+     * @param message The message.
+     */
+    public static void sendMessage(Audience audience, String message) {
+        for (Player p : audience.getMembers()) {
+            p.sendMessage(message);
+        }
+    }
+
+    /**
+     * Play a sound next tick. The same sound queued for the same audience more than once in a tick is only played once.
+     * @see #sendSound(Audience, Sound, float, float)
+     */
+    public static void queueSound(Audience audience, Sound sound, float volume, float pitch) {
+        queue(new Key(audience, "sound", sound, volume, pitch), () -> sendSound(audience, sound, volume, pitch));
+    }
+
+    /**
+     * Show a title next tick. Only the last title queued for an audience in a tick is shown.
+     * @see #sendTitle(Audience, String, String, int, int, int)
+     */
+    public static void queueTitle(Audience audience, String title, String subtitle, int fadeIn, int stay, int fadeOut) {
+        queue(new Key(audience, "title"), () -> sendTitle(audience, title, subtitle, fadeIn, stay, fadeOut));
+    }
+
+    /**
+     * Show an action bar message next tick. Only the last message queued for an audience in a tick is shown.
+     * @see #sendActionBar(Audience, String)
+     */
+    public static void queueActionBar(Audience audience, String message) {
+        queue(new Key(audience, "actionbar"), () -> sendActionBar(audience, message));
+    }
+
+    /**
+     * Send a chat message next tick. The same message queued for the same audience more than once in a tick is only sent once.
+     * @see #sendMessage(Audience, String)
+     */
+    public static void queueMessage(Audience audience, String message) {
+        queue(new Key(audience, "message", message), () -> sendMessage(audience, message));
+    }
+
+    /**
+     * Sends everything queued right now, instead of waiting for the next tick.
+     */
+    public static void flush() {
+        flushScheduled = false;
+        List<Runnable> broadcasts = new ArrayList<>(queued.values());
+        queued.clear();
+        for (Runnable broadcast : broadcasts) {
+            broadcast.run();
+        }
+    }
+
+    private static void queue(Key key, Runnable broadcast) {
+        // removing first moves a replaced broadcast to the back, so it goes out in the order it was last queued
+        queued.remove(key);
+        queued.put(key, broadcast);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, GameBroadcast::flush);
+        }
+    }
+
+    private static final class Key {
+        private final Audience audience;
+        private final Object[] parts;
+
+        private Key(Audience audience, Object... parts) {
+            this.audience = audience;
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return audience == other.audience && Arrays.equals(parts, other.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(audience) + Arrays.hashCode(parts);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.GameInstanceEvent;
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.InstanceCountdownTickEvent;
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.InstanceEndEvent;
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.InstanceFirstJoinEvent;
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.InstanceLastLeaveEvent;
+import me.diffusehyperion.gamemaster.Events.GameInstanceEvent.InstanceStartEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * One match running on the server, such as an arena. Each instance owns its worlds, players, timers and state, so one server can run several matches at once.
+ * <p>
+ * Every instance is kept in a registry, so the instance a player or world belongs to can be looked up straight away with {@link #of(Player)} and {@link #of(World)}.
+ * A player or world can only belong to one instance at a time.
+ * <p>
+ * Instances fire the events in {@link me.diffusehyperion.gamemaster.Events.GameInstanceEvent} as players come and go and the state changes.
+ */
+public class GameInstance {
+
+    /**
+     * The states an instance goes through. An instance starts in {@link #LOBBY}.
+     */
+    public enum State {
+        /**
+         * Waiting for players. Can move to {@link #STARTING}.
+         */
+        LOBBY,
+        /**
+         * Counting down to the start. Can move to {@link #RUNNING}, or back to {@link #LOBBY} if the countdown is called off.
+         */
+        STARTING,
+        /**
+         * The match is being played. Can move to {@link #ENDING}.
+         */
+        RUNNING,
+        /**
+         * The match is over, and results are being shown. Can move to {@link #RESETTING}, or straight to {@link #LOBBY}.
+         */
+        ENDING,
+        /**
+         * The worlds are being reset. Can move to {@link #LOBBY}.
+         */
+        RESETTING;
+
+        /**
+         * @param next The state to move to.
+         * @return If this state can move to the next state.
+         */
+        public boolean canMoveTo(State next) {
+            switch (this) {
+                case LOBBY:
+                    return next == STARTING;
+                case STARTING:
+                    return next == RUNNING || next == LOBBY;
+                case RUNNING:
+                    return next == ENDING;
+                case ENDING:
+                    return next == RESETTING || next == LOBBY;
+                case RESETTING:
+                    return next == LOBBY;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static final Map<String, GameInstance> byName = new LinkedHashMap<>();
+    private static final Map<UUID, GameInstance> byPlayer = new HashMap<>();
+    private static final Map<String, GameInstance> byWorld = new HashMap<>();
+
+    private final String name;
+    private final Audience players = Audience.custom(Collections.emptyList());
+    private final Set<World> worlds = new LinkedHashSet<>();
+    private final List<TimerHandle> timers = new ArrayList<>();
+    private State state = State.LOBBY;
+    private BukkitRunnable countdown;
+    private boolean closed = false;
+
+    private GameInstance(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates a new instance, in the {@link State#LOBBY} state.
+     * @param name The name of the instance. Must not already be in use.
+     * @return The instance.
+     */
+    public static GameInstance create(String name) {
+        if (byName.containsKey(name)) {
+            throw new IllegalArgumentException("An instance called " + name + " already exists!");
+        }
+        GameInstance instance = new GameInstance(name);
+        byName.put(name, instance);
+        return instance;
+    }
+
+    /**
+     * @param name The name of the instance.
+     * @return The instance, or null if there is none with that name.
+     */
+    public static GameInstance get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param player The player.
+     * @return The instance the player is in, or null if they are not in one.
+     */
+    public static GameInstance of(Player player) {
+        return byPlayer.get(player.getUniqueId());
+    }
+
+    /**
+     * @param world The world.
+     * @return The instance the world belongs to, or null if it does not belong to one.
+     */
+    public static GameInstance of(World world) {
+        return byWorld.get(world.getName());
+    }
+
+    /**
+     * @return Every instance, in the order they were created.
+     */
+    public static Collection<GameInstance> getInstances() {
+        return Collections.unmodifiableCollection(byName.values());
+    }
+
+    /**
+     * @return The name of the instance.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The current state.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Moves the instance to another state.
+     * @param next The state to move to. See {@link State} for which moves are allowed.
+     */
+    public void setState(State next) {
+        checkOpen();
+        if (!state.canMoveTo(next)) {
+            throw new IllegalStateException("Instance " + name + " cannot move from " + state + " to " + next + "!");
+        }
+        state = next;
+        if (next != State.STARTING) {
+            stopCountdown();
+        }
+        if (next == State.RUNNING && GameInstanceEvent.hasListeners(InstanceStartEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new InstanceStartEvent(this));
+        } else if (next == State.ENDING && GameInstanceEvent.hasListeners(InstanceEndEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new InstanceEndEvent(this));
+        }
+    }
+
+    /**
+     * Moves the instance to {@link State#STARTING}, counts down, then moves it to {@link State#RUNNING}.
+     * <p>
+     * An {@link InstanceCountdownTickEvent} is fired every second. The countdown stops if the instance is moved back to {@link State#LOBBY}.
+     * @param seconds How many seconds to count down from.
+     */
+    public void countdown(int seconds) {
+        setState(State.STARTING);
+        countdown = new BukkitRunnable() {
+            int secondsLeft = seconds;
+
+            @Override
+            public void run() {
+                if (secondsLeft <= 0) {
+                    setState(State.RUNNING);
+                    return;
+                }
+                if (GameInstanceEvent.hasListeners(InstanceCountdownTickEvent.getHandlerList())) {
+                    Bukkit.getPluginManager().callEvent(new InstanceCountdownTickEvent(GameInstance.this, secondsLeft));
+                }
+                secondsLeft--;
+            }
+        };
+        countdown.runTaskTimer(plugin, 0, 20);
+    }
+
+    private void stopCountdown() {
+        if (countdown != null) {
+            countdown.cancel();
+            countdown = null;
+        }
+    }
+
+    /**
+     * Adds a player to the instance, taking them out of any other instance first. They are shown every timer the instance has running.
+     * @param player The player.
+     */
+    public void addPlayer(Player player) {
+        checkOpen();
+        GameInstance current = byPlayer.get(player.getUniqueId());
+        if (current == this) {
+            return;
+        }
+        if (current != null) {
+            current.removePlayer(player);
+        }
+        byPlayer.put(player.getUniqueId(), this);
+        boolean first = players.size() == 0;
+        players.add(player);
+        for (TimerHandle timer : getTimers()) {
+            GamePlayer.addToBossbar(timer.getBossbar(), player);
+        }
+        if (first && GameInstanceEvent.hasListeners(InstanceFirstJoinEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new InstanceFirstJoinEvent(this, player));
+        }
+    }
+
+    /**
+     * Removes a player from the instance, and hides the instance's timers from them.
+     * @param player The player.
+     */
+    public void removePlayer(Player player) {
+        if (!byPlayer.remove(player.getUniqueId(), this)) {
+            return;
+        }
+        players.remove(player);
+        for (TimerHandle timer : getTimers()) {
+            GamePlayer.removeFromBossbar(timer.getBossbar(), player);
+        }
+        if (players.size() == 0 && GameInstanceEvent.hasListeners(InstanceLastLeaveEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new InstanceLastLeaveEvent(this, player));
+        }
+    }
+
+    /**
+     * @return The players in the instance. This can be passed straight to {@link GameBroadcast}.
+     */
+    public Audience getPlayers() {
+        return players;
+    }
+
+    /**
+     * Gives a world to the instance.
+     * @param world The world. Must not already belong to another instance.
+     */
+    public void addWorld(World world) {
+        checkOpen();
+        GameInstance current = byWorld.get(world.getName());
+        if (current != null && current != this) {
+            throw new IllegalArgumentException("World " + world.getName() + " already belongs to instance " + current.name + "!");
+        }
+        byWorld.put(world.getName(), this);
+        worlds.add(world);
+    }
+
+    /**
+     * Takes a world away from the instance. The world itself is left alone.
+     * @param world The world.
+     */
+    public void removeWorld(World world) {
+        if (worlds.remove(world)) {
+            byWorld.remove(world.getName(), this);
+        }
+    }
+
+    /**
+     * @return The worlds belonging to the instance.
+     */
+    public Set<World> getWorlds() {
+        return Collections.unmodifiableSet(worlds);
+    }
+
+    /**
+     * Creates a timer shown only to the players in the instance. It is cancelled when the instance is closed.
+     * <p>
+     * See {@link GamePlayer#timerHandle(int, String, BarColor, BarStyle, HashMap, Runnable)} for the parameters.
+     * @return The timer's handle.
+     */
+    public TimerHandle timer(int duration, String title, BarColor colour, BarStyle style, HashMap<String, String> replaceList, Runnable tasktorun) {
+        checkOpen();
+        TimerHandle handle = GamePlayer.timerHandle(duration, title, colour, style, replaceList, tasktorun);
+        for (Player player : players.getMembers()) {
+            GamePlayer.addToBossbar(handle.getBossbar(), player);
+        }
+        timers.add(handle);
+        return handle;
+    }
+
+    /**
+     * Hands an existing timer to the instance, so it is cancelled when the instance is closed.
+     * @param handle The timer's handle.
+     */
+    public void addTimer(TimerHandle handle) {
+        checkOpen();
+        if (!timers.contains(handle)) {
+            timers.add(handle);
+        }
+    }
+
+    /**
+     * @return The timers the instance has running.
+     */
+    public List<TimerHandle> getTimers() {
+        Iterator<TimerHandle> iterator = timers.iterator();
+        while (iterator.hasNext()) {
+            TimerHandle timer = iterator.next();
+            if (timer.isCompleted() || timer.isCancelled()) {
+                iterator.remove();
+            }
+        }
+        return Collections.unmodifiableList(timers);
+    }
+
+    /**
+     * @return If the instance has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the instance. Its timers are cancelled, its players and worlds are released, and it is removed from the registry.
+     * <p>
+     * Worlds are not unloaded or deleted. Use {@link GameWorld} for that.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        stopCountdown();
+        for (TimerHandle timer : new ArrayList<>(getTimers())) {
+            timer.cancel();
+        }
+        timers.clear();
+        for (Player player : new ArrayList<>(players.getMembers())) {
+            byPlayer.remove(player.getUniqueId(), this);
+        }
+        players.dispose();
+        for (World world : worlds) {
+            byWorld.remove(world.getName(), this);
+        }
+        worlds.clear();
+        byName.remove(name, this);
+        closed = true;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Instance " + name + " has been closed!");
+        }
+    }
+
+    /**
+     * Takes players out of their instance when they quit.
+     */
+    public static class QuitListener implements Listener {
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void playerQuit(PlayerQuitEvent e) {
+            GameInstance instance = byPlayer.get(e.getPlayer().getUniqueId());
+            if (instance != null) {
+                instance.removePlayer(e.getPlayer());
+            }
+        }
+    }
+}
@@ -10,13 +10,8 @@ import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 import me.diffusehyperion.gamemaster.Utility.Pair;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
-
-import static me.diffusehyperion.gamemaster.GameMaster.plugin;
 
 public class GamePlayer {
 
@@ -45,13 +40,13 @@ public class GamePlayer {
      *
      */
     public static void playSoundToAll(Sound sound, Float volume, Float pitch) {
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            p.playSound(p.getLocation(), sound, volume, pitch);
-        }
+        GameBroadcast.sendSound(Audience.all(), sound, volume, pitch);
     }
 
     /**
      * Enums for replacements in {@link #timer(int, String, BarColor, BarStyle, BukkitRunnable)}.
+     * <p>
+     * The time replacements can also be formatted, such as %time_left:mm:ss%. See {@link TitleTemplate} for every format.
      */
     public enum timerReplacement {
         /**
@@ -64,6 +59,8 @@ public class GamePlayer {
         TIME_ELAPSED("%time_elapsed%"),
         /**
          * Add the name's of every Player to which the timer is visible.
+         * <p>
+         * Use {@link TimerHandle#getViewers()} to shorten long lists, such as "Steve, Alex and 37 more".
          */
         PLAYERS_SHOWN("%players_shown%");
 
@@ -75,6 +72,8 @@ public class GamePlayer {
 
     /**
      * Creates a timer using a bossbar. It will run a BukkitRunnable when completed.
+     * <p>
+     * The returned BukkitRunnable is a {@link TimerHandle}, driven by the shared {@link TimerScheduler}. Cancelling it stops the timer.
      * @param duration The duration of the timer.
      * @param title The title of the timer. See {@link timerReplacement} if you want to add variables from the timer to the title.
      * @param colour The colour of the bossbar.
@@ -82,30 +81,7 @@ public class GamePlayer {
      * @param tasktorun A BukkitRunnable to run when the timer expires.
      */
     public static Pair<BossBar, BukkitRunnable> timer(int duration, String title, BarColor colour, BarStyle style, BukkitRunnable tasktorun) {
-        BigDecimal[] timer = {BigDecimal.valueOf(duration)};
-        BossBar bossbar = Bukkit.createBossBar(title, colour, style, BarFlag.PLAY_BOSS_MUSIC);
-        bossbar.setProgress(1);
-        BukkitRunnable task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                bossbar.setProgress(timer[0].divide(BigDecimal.valueOf(duration), 5, RoundingMode.HALF_EVEN).doubleValue());
-
-                List<String> list = new ArrayList<>();
-                for (Player pl : bossbar.getPlayers()) {
-                    list.add(pl.getDisplayName());
-                }
-                bossbar.setTitle(bossbarReplaceTitle(title, timer[0].doubleValue(), duration - timer[0].doubleValue(), list));
-
-                timer[0] = timer[0].subtract(BigDecimal.valueOf(0.1));
-                if (timer[0].doubleValue() <= 0) {
-                    bossbar.removeAll();
-                    tasktorun.run();
-                    this.cancel();
-                }
-            }
-        };
-        task.runTaskTimer(plugin, 0, 2);
-        return new Pair<>(bossbar, task);
+        return startTimer(duration, title, colour, style, null, tasktorun);
     }
 
     /**
@@ -125,6 +101,8 @@ public class GamePlayer {
 
     /**
      * Creates a timer using a bossbar. This timer allows for custom variables. It will run a BukkitRunnable when completed.
+     * <p>
+     * The values in replaceList can be changed while the timer runs, but every key must already be in it when the timer is created.
      * @param duration The duration of the timer.
      * @param title The title of the timer. See {@link timerReplacement} if you want to add variables from the timer to the title.
      * @param colour The colour of the bossbar.
@@ -132,33 +110,7 @@ public class GamePlayer {
      * @see #timer(int, String, BarColor, BarStyle, BukkitRunnable)
      */
     public static Pair<BossBar, BukkitRunnable> customTimer(int duration, String title, BarColor colour, BarStyle style, HashMap<String, String> replaceList, BukkitRunnable tasktorun) {
-        BigDecimal[] timer = {BigDecimal.valueOf(duration)};
-        BossBar bossbar = Bukkit.createBossBar(title, colour, style, BarFlag.PLAY_BOSS_MUSIC);
-        bossbar.setProgress(1);
-        BukkitRunnable task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                bossbar.setProgress(timer[0].divide(BigDecimal.valueOf(duration), 5, RoundingMode.HALF_EVEN).doubleValue());
-
-                List<String> list = new ArrayList<>();
-                for (Player pl : bossbar.getPlayers()) {
-                    list.add(pl.getDisplayName());
-                }
-
-                String tempTitle;
-                tempTitle = bossbarReplaceTitle(title, timer[0].doubleValue(), duration - timer[0].doubleValue(), list);
-                bossbar.setTitle(customBossbarReplaceTitle(tempTitle, replaceList));
-
-                timer[0] = timer[0].subtract(BigDecimal.valueOf(0.1));
-                if (timer[0].doubleValue() <= 0) {
-                    bossbar.removeAll();
-                    tasktorun.run();
-                    this.cancel();
-                }
-            }
-        };
-        task.runTaskTimer(plugin, 0, 2);
-        return new Pair<>(bossbar, task);
+        return startTimer(duration, title, colour, style, replaceList, tasktorun);
     }
 
     /**
@@ -177,26 +129,58 @@ public class GamePlayer {
         });
     }
 
+    /**
+     * Creates a timer driven by the {@link TimerScheduler}, and returns its handle.
+     * <p>
+     * The handle can pause, resume, extend and cancel the timer.
+     * @param duration The duration of the timer.
+     * @param title The title of the timer. See {@link timerReplacement} if you want to add variables from the timer to the title.
+     * @param colour The colour of the bossbar.
+     * @param style The style of the bossbar.
+     * @param replaceList Custom variables for the title. Set to null if there are none. Values can be changed while the timer runs, but every key must already be in the map.
+     * @param tasktorun A task to run when the timer expires.
+     * @return The timer's handle.
+     */
+    public static TimerHandle timerHandle(int duration, String title, BarColor colour, BarStyle style, HashMap<String, String> replaceList, Runnable tasktorun) {
+        TitleTemplate template = TitleTemplate.compile(title, replaceList == null ? Collections.emptySet() : replaceList.keySet());
+        if (!template.getUnknownPlaceholders().isEmpty()) {
+            Bukkit.getLogger().warning("Timer title \"" + title + "\" has unknown placeholders: " + String.join(", ", template.getUnknownPlaceholders()));
+        }
+        BossBar bossbar = Bukkit.createBossBar(title, colour, style, BarFlag.PLAY_BOSS_MUSIC);
+        bossbar.setProgress(1);
+        TimerHandle handle = new TimerHandle(bossbar, duration * 20L, template, replaceList, tasktorun);
+        handle.start();
+        return handle;
+    }
+
+    private static Pair<BossBar, BukkitRunnable> startTimer(int duration, String title, BarColor colour, BarStyle style, HashMap<String, String> replaceList, BukkitRunnable tasktorun) {
+        TimerHandle handle = timerHandle(duration, title, colour, style, replaceList, tasktorun);
+        return new Pair<>(handle.getBossbar(), handle);
+    }
+
     public static void showBossbarToAll(BossBar bossBar) {
         for (Player p : Bukkit.getOnlinePlayers()) {
-            bossBar.addPlayer(p);
+            addToBossbar(bossBar, p);
         }
     }
 
-
-    private static String bossbarReplaceTitle(String title, Double timeLeft, Double timeElapsed, List<String> playerList) {
-        String replacementTitle = title;
-        replacementTitle = replacementTitle.replace(timerReplacement.TIME_LEFT.toString(), String.valueOf(timeLeft));
-        replacementTitle = replacementTitle.replace(timerReplacement.TIME_ELAPSED.toString(), String.valueOf(timeElapsed));
-        replacementTitle = replacementTitle.replace(timerReplacement.PLAYERS_SHOWN.toString(), String.join(", ", playerList));
-        return replacementTitle;
+    /**
+     * Show a bossbar to a player. Timers showing {@link timerReplacement#PLAYERS_SHOWN} will update their list straight away.
+     * @param bossBar The bossbar.
+     * @param player The player.
+     */
+    public static void addToBossbar(BossBar bossBar, Player player) {
+        bossBar.addPlayer(player);
+        BossBarViewers.added(bossBar, player);
     }
 
-    private static String customBossbarReplaceTitle(String title, HashMap<String, String> replaceList) {
-        String replacementTitle = title;
-        for (String s : replaceList.keySet()) {
-            replacementTitle = replacementTitle.replace(s, replaceList.get(s));
-        }
-        return replacementTitle;
+    /**
+     * Hide a bossbar from a player. Timers showing {@link timerReplacement#PLAYERS_SHOWN} will update their list straight away.
+     * @param bossBar The bossbar.
+     * @param player The player.
+     */
+    public static void removeFromBossbar(BossBar bossBar, Player player) {
+        bossBar.removePlayer(player);
+        BossBarViewers.removed(bossBar, player);
     }
 }
@@ -1,5 +1,6 @@
 package me.diffusehyperion.gamemaster.Components;
 
+import me.diffusehyperion.gamemaster.Utility.FileIO;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -7,8 +8,12 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Properties;
+import java.util.Set;
 
 public class GameServer {
 
@@ -25,12 +30,14 @@ public class GameServer {
      * @return Value of the property.
      */
     public static String readServerProperties(String propertyName) throws IOException {
-        File propertiesFile = new File(Bukkit.getWorldContainer(), "server.properties");
-        FileInputStream stream = new FileInputStream(propertiesFile);
-        Properties properties = new Properties();
-        properties.load(stream);
-        return properties.getProperty(propertyName);
+        try {
+            return ConfigStore.serverProperties().get(propertyName);
+        } catch (InvalidConfigurationException e) {
+            // server.properties is never parsed as YAML
+            throw new IOException(e);
+        }
     }
+
     /**
      * Check and edit a property in the server's server.properties.
      * @param propertyToCheck The property in the file to check. (Example: level-name)
@@ -41,15 +48,34 @@ public class GameServer {
      */
     public static boolean checkAndEditServerProperties(String propertyToCheck, String correctConfig, String oldContent, String newContent) throws IOException {
         if (!Objects.equals(readServerProperties(propertyToCheck), correctConfig)) {
-            File propertiesFile = new File(Bukkit.getWorldContainer(), "server.properties");
-            String newcontent = readFile(propertiesFile).replaceAll(oldContent, newContent);
-            writeFile(newcontent, propertiesFile);
+            ConfigStore store = ConfigStore.serverProperties();
+            store.edit(content -> content.replaceAll(oldContent, newContent));
+            try {
+                store.save();
+            } catch (InvalidConfigurationException e) {
+                throw new IOException(e);
+            }
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Check and edit several properties in the server's server.properties at once.
+     * <p>
+     * The file is only written once, and comments and ordering are kept.
+     * @param properties The properties to check, and what they should be. (Example: spawn-protection, 0)
+     * @return The properties that needed a change.
+     */
+    public static Set<String> checkAndEditServerProperties(Map<String, String> properties) throws IOException {
+        try {
+            return ConfigStore.serverProperties().set(properties);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Reads a property in a YAML file.
      * <p>
@@ -59,9 +85,7 @@ public class GameServer {
      * @return The property value.
      */
     public static String readYMLFile(File ymlFile, String property) throws IOException, InvalidConfigurationException {
-        YamlConfiguration ymlConfig = new YamlConfiguration();
-        ymlConfig.load(ymlFile);
-        return ymlConfig.getString(property);
+        return ConfigStore.of(ymlFile).get(property);
     }
 
     /**
@@ -78,53 +102,75 @@ public class GameServer {
         // the value of neededProperty
 
         if (!Objects.equals(valueOfProperty, correctConfig)) {
-            String newcontent = readFile(fileToCheck).replaceAll(oldContent, newContent);
-            writeFile(newcontent, fileToCheck);
+            ConfigStore store = ConfigStore.of(fileToCheck);
+            store.edit(content -> content.replaceAll(oldContent, newContent));
+            store.save();
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Check and edit several properties in a YAML file at once.
+     * <p>
+     * The file is only written once, and comments and ordering are kept.
+     * @param fileToCheck The file to check.
+     * @param properties The properties to check, and what they should be. (Example: settings.allow-end, false)
+     * @return The properties that needed a change.
+     */
+    public static Set<String> checkAndEditYAML(File fileToCheck, Map<String, String> properties) throws IOException, InvalidConfigurationException {
+        return ConfigStore.of(fileToCheck).set(properties);
+    }
+
     /**
      * Restarts a server.
      */
     public static void restart() {
+        restart("Restarted by a plugin");
+    }
+
+    /**
+     * Restarts a server, handing the reason and the startup checks that already passed to the next server.
+     * <p>
+     * The next server skips those checks, and logs how long it took until players could join. See {@link RestartState}.
+     * @param reason Why the server is restarting.
+     */
+    public static void restart(String reason) {
+        try {
+            RestartState.save(reason);
+        } catch (IOException e) {
+            Bukkit.getLogger().warning("Could not save the restart state, the next start will do every check: " + e.getMessage());
+        }
         Bukkit.spigot().restart();
     }
 
     /**
-     * Reads a file and returns the string of the contents.
+     * Reads a UTF-8 file and returns the string of the contents.
+     * <p>
+     * Use {@link FileIO#forEachLine(java.nio.file.Path, java.nio.charset.Charset, FileIO.LineConsumer)} for large files.
      * @param file The file to read.
-     * @return The string of contents. This includes line separators.
+     * @return The string of contents. This includes line separators, exactly as they are in the file.
      */
     public static String readFile(File file) {
-        StringBuilder builder = new StringBuilder();
         try {
-            BufferedReader br = new BufferedReader(new FileReader(file));
-            String line = br.readLine();
-            while (line != null) {
-                builder.append(line).append(System.lineSeparator());
-                line = br.readLine();
-            }
-            br.close();
+            return FileIO.read(file.toPath());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return builder.toString();
     }
 
     /**
-     * Replace EVERYTHING in a file with a string.
+     * Replace EVERYTHING in a file with a string, written as UTF-8.
      * Use line terminators if you want to use additional lines.
+     * <p>
+     * The file is replaced in one step, so a crash while writing will not leave it half written.
      * @see lineTerminators
      * @param content The content to write.
      * @param file The file to be written to.
      */
     public static void writeFile(String content, File file) throws IOException {
-        FileWriter writer = new FileWriter(file);
-        writer.write(content);
-        writer.close();
+        FileIO.write(file.toPath(), content);
     }
 
     /**
@@ -133,13 +179,22 @@ public class GameServer {
      * @return Server's jar file.
      */
     public static File getServerJar() {
-        for (final File file : Objects.requireNonNull(Bukkit.getWorldContainer().listFiles())) {
-            final String[] split = file.getName().split("\\.");
-            if (split[split.length - 1].equals("jar")) {
-                return file;
+        long start = System.nanoTime();
+        try {
+            File jar = StartupFingerprint.getServerJar();
+            if (jar != null) {
+                return jar;
+            }
+            for (final File file : Objects.requireNonNull(Bukkit.getWorldContainer().listFiles())) {
+                if (file.getName().endsWith(".jar") && file.isFile()) {
+                    StartupFingerprint.setServerJar(file);
+                    return file;
+                }
             }
+            return null;
+        } finally {
+            StartupFingerprint.addCheckTime(System.nanoTime() - start);
         }
-        return null;
     }
 
     /**
@@ -151,20 +206,43 @@ public class GameServer {
      * @return If a change was required.
      */
     public static boolean checkForServerProperties(boolean disableSpawnProtection, boolean disableNether, boolean disableEnd, boolean enableFlight) throws IOException, InvalidConfigurationException {
-        boolean neededChange = false;
-        if (disableSpawnProtection) {
-            neededChange = checkAndEditServerProperties("spawn-protection", "0", "spawn-protection=\\d+", "spawn-protection=0");
-        }
-        if (disableNether) {
-            neededChange = checkAndEditServerProperties("allow-nether", "false", "allow-nether=[a-zA-Z]+", "allow-nether=false");
-        }
-        if (disableEnd) {
-            neededChange = checkAndEditYAML(new File("bukkit.yml"), "settings.allow-end", "false", "allow-end: [a-zA-Z]+", "allow-end: false");
-        }
-        if (enableFlight) {
-            neededChange = checkAndEditServerProperties("allow-flight", "true", "allow-flight=[a-zA-Z]+", "allow-flight=true");
+        return !editServerProperties(disableSpawnProtection, disableNether, disableEnd, enableFlight).isEmpty();
+    }
+
+    /**
+     * Check and edits common server properties, and returns what was changed.
+     * <p>
+     * Each file is read from memory and written at most once.
+     * @see #checkForServerProperties(boolean, boolean, boolean, boolean)
+     * @return The properties that needed a change. (Example: allow-nether, settings.allow-end)
+     */
+    public static Set<String> editServerProperties(boolean disableSpawnProtection, boolean disableNether, boolean disableEnd, boolean enableFlight) throws IOException, InvalidConfigurationException {
+        long start = System.nanoTime();
+        try {
+            String check = "server-properties:" + (disableSpawnProtection ? 1 : 0) + (disableNether ? 1 : 0) + (disableEnd ? 1 : 0) + (enableFlight ? 1 : 0);
+            if (checkPassed(check)) {
+                return Collections.emptySet();
+            }
+            Map<String, String> properties = new LinkedHashMap<>();
+            if (disableSpawnProtection) {
+                properties.put("spawn-protection", "0");
+            }
+            if (disableNether) {
+                properties.put("allow-nether", "false");
+            }
+            if (enableFlight) {
+                properties.put("allow-flight", "true");
+            }
+            Set<String> changed = new LinkedHashSet<>(checkAndEditServerProperties(properties));
+            if (disableEnd) {
+                changed.addAll(ConfigStore.bukkitYML().set(Collections.singletonMap("settings.allow-end", "false")));
+            }
+            // the files are correct now, even if they needed changing
+            markPassed(check);
+            return changed;
+        } finally {
+            StartupFingerprint.addCheckTime(System.nanoTime() - start);
         }
-        return neededChange;
     }
 
     /**
@@ -273,35 +351,57 @@ public class GameServer {
         if (restartSetup()) {
             return false;
         }
-        File restartBatch = new File("restart.bat");
-        File restartUnix = new File("restart.sh");
-        if (OS.equals(OSTypes.Windows)) {
-            restartBatch.createNewFile();
+        writeRestartScript(OS, new RestartScript().build(OS, serverJar));
+        return true;
+    }
+
+    /**
+     * Sets up a batch/bash script for spigot to use when restarting, with JVM flags from a {@link RestartScript}.
+     * <p>
+     * Unlike the other setupRestart methods, an existing script is replaced if it is different, so changing the flags takes effect on the next restart.
+     * @apiNote Mac and Solaris setups are UNTESTED! They will probably break lol
+     * @param OS The OS of the system. {@link #getOS()}
+     * @param serverJar The server's jar file name.
+     * @param script The script's settings.
+     * @return If the script or spigot.yml needed a change.
+     */
+    public static boolean setupRestart(OSTypes OS, String serverJar, RestartScript script) throws IOException, IllegalArgumentException, InvalidConfigurationException {
+        String content = script.build(OS, serverJar);
+        File file = new File(OS.equals(OSTypes.Windows) ? "restart.bat" : "restart.sh");
+        boolean changed = !file.exists() || !readFile(file).equals(content);
+        if (changed) {
+            writeRestartScript(OS, content);
         } else {
-            restartUnix.createNewFile();
+            changed = ConfigStore.spigotYML().set("settings.restart-script", OS.equals(OSTypes.Windows) ? "restart.bat" : "./restart.sh");
         }
-        switch (OS) {
-            case Windows:
-                writeFile("java -jar " + serverJar + " --nogui", restartBatch);
-                break;
-            case Mac:
-            case Unix:
-                writeFile("#!/bin/sh" + lineTerminators.Unix + "java -jar " +   serverJar + " --nogui", restartUnix);
-                break;
-            case Solaris:
-                writeFile("#!/usr/xpg4/bin/sh" + lineTerminators.Unix + "java -jar " +  serverJar + " --nogui", restartUnix);
-                break;
+        markPassed("restart-setup");
+        return changed;
+    }
+
+    private static boolean checkPassed(String check) {
+        if (RestartState.hasPassed(check) || StartupFingerprint.hasPassed(check)) {
+            markPassed(check);
+            return true;
         }
+        return false;
+    }
 
-        File spigotyml = new File("spigot.yml");
-        String newcontent;
-        if (OS.equals(OSTypes.Windows)) {
-            newcontent = readFile(spigotyml).replaceAll("restart-script: .*", "restart-script: restart.bat");
-        } else {
-            newcontent = readFile(spigotyml).replaceAll("restart-script: .*", "restart-script: ./restart.sh");
+    private static void markPassed(String check) {
+        RestartState.markPassed(check);
+        StartupFingerprint.markPassed(check);
+    }
+
+    private static void writeRestartScript(OSTypes OS, String content) throws IOException, InvalidConfigurationException {
+        if (OS == OSTypes.Unknown) {
+            throw new IllegalArgumentException("Unknown OS, cannot set up a restart script!");
         }
-        writeFile(newcontent, spigotyml);
-        return true;
+        File file = new File(OS.equals(OSTypes.Windows) ? "restart.bat" : "restart.sh");
+        writeFile(content, file);
+        if (!OS.equals(OSTypes.Windows)) {
+            file.setExecutable(true);
+        }
+        ConfigStore.spigotYML().set("settings.restart-script", OS.equals(OSTypes.Windows) ? "restart.bat" : "./restart.sh");
+        markPassed("restart-setup");
     }
 
     /**
@@ -309,10 +409,28 @@ public class GameServer {
      * @return If it is configured.
      */
     public static boolean restartSetup() throws IOException, InvalidConfigurationException {
-        String value = readYMLFile(new File("spigot.yml"), "settings.restart-script");
-        String restartScriptName = value.replace("./", "");
-        File restartScript = new File(restartScriptName);
-        return restartScript.exists();
+        long start = System.nanoTime();
+        try {
+            if (checkPassed("restart-setup")) {
+                return true;
+            }
+            File restartScript = getRestartScript();
+            if (restartScript != null && restartScript.exists()) {
+                markPassed("restart-setup");
+                return true;
+            }
+            return false;
+        } finally {
+            StartupFingerprint.addCheckTime(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return The restart script set in spigot.yml, or null if none is set.
+     */
+    public static File getRestartScript() throws IOException, InvalidConfigurationException {
+        String value = ConfigStore.spigotYML().get("settings.restart-script");
+        return value == null ? null : new File(value.replace("./", ""));
     }
 
     /**
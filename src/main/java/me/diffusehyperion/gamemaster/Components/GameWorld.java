@@ -1,14 +1,31 @@
 package me.diffusehyperion.gamemaster.Components;
 
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import me.diffusehyperion.gamemaster.Utility.RetryPolicy;
+import me.diffusehyperion.gamemaster.Utility.WorldCopier;
 import org.apache.commons.io.FileUtils;
 import org.bukkit.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Objects;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
 
 public class GameWorld {
+
+    private static final Metrics.Timer CREATE_TIMER = Metrics.timer("world.create");
+    private static final Metrics.Timer DELETE_TIMER = Metrics.timer("world.delete");
+    private static final Metrics.Counter DELETE_FAILURES = Metrics.counter("world.delete.failed");
+    private static final Metrics.Timer FILL_TIMER = Metrics.timer("world.fill");
+    private static final Metrics.Counter FILLED_BLOCKS = Metrics.counter("world.fill.blocks");
+    private static final Metrics.Timer SETUP_TIMER = Metrics.timer("world.setup");
+
     /**
      * Creates a world.
      * <p>
@@ -20,11 +37,54 @@ public class GameWorld {
      * @return Returns the created world, or if a world already exists with the provided name, the existing world.
      */
     public static World createWorld(String worldName, Long seed, World.Environment env, WorldType type) {
-        WorldCreator worldcreator = new WorldCreator(worldName);
-        worldcreator.seed(seed);
-        worldcreator.environment(env);
-        worldcreator.type(type);
-        return worldcreator.createWorld();
+        long start = CREATE_TIMER.start();
+        try {
+            WorldCreator worldcreator = new WorldCreator(worldName);
+            worldcreator.seed(seed);
+            worldcreator.environment(env);
+            worldcreator.type(type);
+            return worldcreator.createWorld();
+        } finally {
+            CREATE_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Creates a world, which can be ephemeral.
+     * <p>
+     * An ephemeral world never saves to disk, and is deleted when the server stops. Use it for worlds that are deleted after the match anyway.
+     * Its files are kept in {@link EphemeralWorlds#getScratchDirectory()} if one is set.
+     * @see #createWorld(String, Long, World.Environment, WorldType)
+     * @see EphemeralWorlds
+     * @param worldName The name of the created world.
+     * @param seed The seed for the world.
+     * @param ephemeral If the world should be ephemeral.
+     * @return Returns the created world, or if a world already exists with the provided name, the existing world.
+     */
+    public static World createWorld(String worldName, Long seed, World.Environment env, WorldType type, boolean ephemeral) throws IOException {
+        if (!ephemeral) {
+            return createWorld(worldName, seed, env, type);
+        }
+        long start = CREATE_TIMER.start();
+        try {
+            WorldCreator worldcreator = new WorldCreator(worldName);
+            worldcreator.seed(seed);
+            worldcreator.environment(env);
+            worldcreator.type(type);
+            return EphemeralWorlds.createWorld(worldcreator);
+        } finally {
+            CREATE_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Creates an ephemeral overworld with a random seed.
+     * @see #createWorld(String, Long, World.Environment, WorldType, boolean)
+     * @param worldName The name of the created world.
+     * @return Returns the created world, or if a world already exists with the provided name, the existing world.
+     */
+    public static World createEphemeralWorld(String worldName) throws IOException {
+        return createWorld(worldName, new Random().nextLong(), World.Environment.NORMAL, WorldType.NORMAL, true);
     }
 
     /**
@@ -68,17 +128,108 @@ public class GameWorld {
         return createWorld(GameServer.readServerProperties("level-name"), new Random().nextLong());
     }
 
+    /**
+     * Creates a world by copying a template world's files, instead of generating it.
+     * <p>
+     * The template should not be changed while it is being copied. If it is loaded, it will be saved first, and its generator settings are used for the copy.
+     * <p>
+     * This waits for the copy to finish. Use {@link #cloneWorldAsync(String, String, boolean)} to copy in the background.
+     * @param templateName The name of the template world.
+     * @param newName The name of the created world. It must not exist yet.
+     * @return The created world.
+     */
+    public static World cloneWorld(String templateName, String newName) throws IOException {
+        return cloneWorld(templateName, newName, false);
+    }
+
+    /**
+     * Creates a world by copying a template world's files, instead of generating it.
+     * <p>
+     * This waits for the copy to finish. Use {@link #cloneWorldAsync(String, String, boolean)} to copy in the background.
+     * @see #cloneWorld(String, String)
+     * @param templateName The name of the template world.
+     * @param newName The name of the created world. It must not exist yet.
+     * @param linkRegions If region files should be hard linked instead of copied. Only do this if the created world will never save chunks, as linked files are shared with the template!
+     * @return The created world.
+     */
+    public static World cloneWorld(String templateName, String newName, boolean linkRegions) throws IOException {
+        World template = prepareTemplate(templateName);
+        WorldCopier.Result result = WorldCopier.copy(worldFolder(templateName), worldFolder(newName), linkRegions);
+        return loadClone(template, templateName, newName, result);
+    }
+
+    /**
+     * Creates a world by copying a template world's files in the background, then loading it on the main thread.
+     * @see #cloneWorld(String, String, boolean)
+     * @param templateName The name of the template world.
+     * @param newName The name of the created world. It must not exist yet.
+     * @param linkRegions If region files should be hard linked instead of copied. Only do this if the created world will never save chunks, as linked files are shared with the template!
+     * @return A future which completes on the main thread with the created world.
+     */
+    public static CompletableFuture<World> cloneWorldAsync(String templateName, String newName, boolean linkRegions) {
+        World template = prepareTemplate(templateName);
+        CompletableFuture<World> future = new CompletableFuture<>();
+        WorldCopier.copyAsync(worldFolder(templateName), worldFolder(newName), linkRegions).whenComplete((result, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                try {
+                    future.complete(loadClone(template, templateName, newName, result));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        });
+        return future;
+    }
+
+    private static World prepareTemplate(String templateName) {
+        World template = Bukkit.getWorld(templateName);
+        if (template != null) {
+            template.save();
+        }
+        return template;
+    }
+
+    private static World loadClone(World template, String templateName, String newName, WorldCopier.Result result) {
+        long start = System.currentTimeMillis();
+        WorldCreator worldcreator = new WorldCreator(newName);
+        if (template != null) {
+            worldcreator.copy(template);
+        }
+        World world = worldcreator.createWorld();
+        Bukkit.getLogger().info("Cloned " + templateName + " into " + newName + ": copied " + result.getFiles() + " files (" + result.getBytes() + " bytes, "
+                + result.getLinked() + " linked) in " + result.getMillis() + "ms, loaded in " + (System.currentTimeMillis() - start) + "ms.");
+        return world;
+    }
+
+    private static Path worldFolder(String worldName) {
+        return new File(Bukkit.getWorldContainer(), worldName).toPath();
+    }
+
     /**
      * Deletes a world. This should be in onLoad().
+     * <p>
+     * The world's folder is renamed straight away, so the name can be reused immediately, and the files are deleted in the background.
+     * If the world cannot be unloaded, or cannot be renamed after a few tries, a warning is logged and nothing is deleted.
+     * @see WorldDeletion#deleteWorld(String, RetryPolicy)
      * @param worldName The name of the deleted world.
      */
     public static void deleteWorld(String worldName) {
         assert worldName != null;
-        File oldworld = new File(Bukkit.getWorldContainer().getAbsolutePath() + "/" + worldName);
-        do {
-            Bukkit.unloadWorld(worldName, false);
-            FileUtils.deleteQuietly(oldworld);
-        } while (oldworld.exists());
+        long start = DELETE_TIMER.start();
+        WorldDeletion.Result result;
+        try {
+            result = WorldDeletion.deleteWorld(worldName, RetryPolicy.DEFAULT);
+        } finally {
+            DELETE_TIMER.stop(start);
+        }
+        if (!result.isSuccess()) {
+            DELETE_FAILURES.increment();
+            Bukkit.getLogger().log(Level.WARNING, result.toString(), result.getError());
+        }
     }
 
     /**
@@ -88,66 +239,104 @@ public class GameWorld {
         deleteWorld(GameServer.readServerProperties("level-name"));
     }
 
+    /**
+     * Deletes a world without blocking the server.
+     * <p>
+     * The world is unloaded on the main thread, and its files are deleted in the background. The future completes on a background thread!
+     * @see WorldDeletion#deleteWorldAsync(String, RetryPolicy)
+     * @param worldName The name of the deleted world.
+     * @return A future with the result of the deletion.
+     */
+    public static CompletableFuture<WorldDeletion.Result> deleteWorldAsync(String worldName) {
+        return WorldDeletion.deleteWorldAsync(worldName, RetryPolicy.DEFAULT);
+    }
+
     /**
      * Sets an area with blocks.
      * <p>
      * loc1 and loc2 must have the same world.
+     * <p>
+     * This runs all at once, so large areas will freeze the server. Use {@link #fillBlocksAsync(Location, Location, Material)} for those instead.
      * @param loc1 A corner of the area being filled.
      * @param loc2 Another corner of the area being filled.
      * @param blocktype The type of block to fill the area with.
      */
     public static void fillBlocks(Location loc1, Location loc2, Material blocktype) {
-        if (loc1.getWorld() != loc2.getWorld()) {
-            throw new IllegalArgumentException("Location 1 and location 2's worlds must be the same!");
-        }
-        World world = loc1.getWorld();
-        int X1 = loc1.getBlockX();
-        int Y1 = loc1.getBlockY();
-        int Z1 = loc1.getBlockZ();
-        int X2 = loc2.getBlockX();
-        int Y2 = loc2.getBlockY();
-        int Z2 = loc2.getBlockZ();
-        int startX;
-        int endX;
-        int startY;
-        int endY;
-        int startZ;
-        int endZ;
-        if (X1 > X2) {
-            startX = X2;
-            endX = X1;
-        } else {
-            startX = X1;
-            endX = X2;
-        }
-        if (Y1 > Y2) {
-            startY = Y2;
-            endY = Y1;
-        } else {
-            startY = Y1;
-            endY = Y2;
-        }
-        if (Z1 > Z2) {
-            startZ = Z2;
-            endZ = Z1;
-        } else {
-            startZ = Z1;
-            endZ = Z2;
-        }
-        for (int y = startY; y <= endY; y++) {
-            for (int z = startZ; z <= endZ; z++) {
-                for (int x = startX; x <= endX; x++) {
-                    assert world != null;
-                    world.getBlockAt(x, y, z).setType(blocktype);
-                }
-            }
+        long start = FILL_TIMER.start();
+        FillTask task;
+        try {
+            task = new FillTask(loc1, loc2, blocktype, null, FillTask.FillMode.FILL, BudgetedTask.DEFAULT_BUDGET_MILLIS).runNow();
+        } finally {
+            FILL_TIMER.stop(start);
         }
+        FILLED_BLOCKS.add(task.getBlocksChanged());
+    }
+
+    /**
+     * Sets an area with blocks, spread over several ticks.
+     * <p>
+     * loc1 and loc2 must have the same world.
+     * <p>
+     * At most {@link BudgetedTask#DEFAULT_BUDGET_MILLIS} milliseconds will be spent filling every tick.
+     * @param loc1 A corner of the area being filled.
+     * @param loc2 Another corner of the area being filled.
+     * @param blocktype The type of block to fill the area with.
+     * @return The running fill task. Use {@link FillTask#getFuture()} to find out when it is done.
+     */
+    public static FillTask fillBlocksAsync(Location loc1, Location loc2, Material blocktype) {
+        return fillBlocksAsync(loc1, loc2, blocktype, null, FillTask.FillMode.FILL, BudgetedTask.DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Sets an area with blocks, spread over several ticks.
+     * <p>
+     * loc1 and loc2 must have the same world.
+     * @param loc1 A corner of the area being filled.
+     * @param loc2 Another corner of the area being filled.
+     * @param blocktype The type of block to fill the area with.
+     * @param replace Only blocks of this type will be replaced. Set to null to replace every block.
+     * @param mode How the area should be filled. See {@link FillTask.FillMode}.
+     * @param budgetMillis How many milliseconds can be spent filling every tick.
+     * @return The running fill task. Use {@link FillTask#getFuture()} to find out when it is done.
+     */
+    public static FillTask fillBlocksAsync(Location loc1, Location loc2, Material blocktype, Material replace, FillTask.FillMode mode, long budgetMillis) {
+        FillTask task = new FillTask(loc1, loc2, blocktype, replace, mode, budgetMillis);
+        task.start();
+        return task;
+    }
+
+    /**
+     * Captures the blocks in an area, so they can be saved or pasted back later.
+     * <p>
+     * loc1 and loc2 must have the same world.
+     * @see RegionSnapshot#capture(Location, Location)
+     * @param loc1 A corner of the area.
+     * @param loc2 Another corner of the area.
+     * @return A future which completes on a background thread with the snapshot.
+     */
+    public static CompletableFuture<RegionSnapshot> captureRegion(Location loc1, Location loc2) {
+        return RegionSnapshot.capture(loc1, loc2);
+    }
+
+    /**
+     * Pastes a captured area, spread over several ticks.
+     * <p>
+     * At most {@link BudgetedTask#DEFAULT_BUDGET_MILLIS} milliseconds will be spent pasting every tick.
+     * @see RegionSnapshot#paste(Location, long)
+     * @param snapshot The captured area.
+     * @param corner Where the area's lowest corner should go.
+     * @return The running paste. Use {@link RegionSnapshot.PasteTask#getFuture()} to find out when it is done.
+     */
+    public static RegionSnapshot.PasteTask pasteRegion(RegionSnapshot snapshot, Location corner) {
+        return snapshot.paste(corner);
     }
 
     /**
      * Prepares a world for a pregame scenario.
      * <p>
      * The world spawn will be set at X: 0 Z: 0, and its Y will be at the highest non-air block.
+     * Plants and snow layers on top are skipped, so the spawn is on the ground under them.
+     * If the spawn platform is enabled, it is placed when that block is water, lava or otherwise dangerous, such as magma or cactus.
      * <p>
      * PVP will be off.
      * @param world The affected world.
@@ -158,35 +347,77 @@ public class GameWorld {
      * @param spawnRadius How much blocks you can spawn away from 0, 0.
      */
     public static void setupWorld(World world, boolean setupSpawnPlatform, Double borderSize, int warningTime, int warningDist, int spawnRadius) {
-        WorldBorder border = world.getWorldBorder();
-        border.setCenter(0, 0);
-        border.setSize(borderSize);
-        for (int i = 255; true; i = i - 1) {
-            if (!Objects.equals(world.getBlockAt(0, i, 0).getType(), Material.AIR)) {
-                if (setupSpawnPlatform && Objects.equals(world.getBlockAt(0, i, 0).getType(), Material.WATER)) {
-                    fillBlocks(new Location(world, -2, i, -2), new Location(world, 2, i, 2), Material.DIRT);
-                }
-                world.setSpawnLocation(new Location(world, 0.5, i + 1, 0.5));
-                break;
+        long start = SETUP_TIMER.start();
+        try {
+            WorldBorder border = world.getWorldBorder();
+            border.setCenter(0, 0);
+            border.setSize(borderSize);
+            int y = SafeLocationFinder.findGroundY(world, 0, 0);
+            Material ground = world.getBlockAt(0, y, 0).getType();
+            if (setupSpawnPlatform && (ground == Material.WATER || ground == Material.LAVA || SafeLocationFinder.DANGEROUS.contains(ground))) {
+                fillBlocks(new Location(world, -2, y, -2), new Location(world, 2, y, 2), Material.DIRT);
             }
+            world.setSpawnLocation(new Location(world, 0.5, y + 1, 0.5));
+            world.setGameRule(GameRule.SPAWN_RADIUS, spawnRadius);
+            world.getWorldBorder().setWarningTime(warningTime);
+            world.getWorldBorder().setWarningDistance(warningDist);
+            world.setPVP(false);
+        } finally {
+            SETUP_TIMER.stop(start);
         }
-        world.setGameRule(GameRule.SPAWN_RADIUS, spawnRadius);
-        world.getWorldBorder().setWarningTime(warningTime);
-        world.getWorldBorder().setWarningDistance(warningDist);
-        world.setPVP(false);
+    }
+
+    /**
+     * Prepares a world for a pregame scenario, then starts generating every chunk inside the border in the background.
+     * <p>
+     * Pre-generation runs at 4 chunks per tick while the server is at 18 TPS or higher, and unloads chunks after generating them.
+     * @see #setupWorld(World, boolean, Double, int, int, int)
+     * @see #pregenerateWorld(World, int, double, boolean)
+     * @param world The affected world.
+     * @param setupSpawnPlatform Whether to create a 3x3 dirt platform at 0, 0.
+     * @param borderSize The diameter of the border.
+     * @param warningTime Warning time for the border.
+     * @param warningDist Warning distance for the border.
+     * @param spawnRadius How much blocks you can spawn away from 0, 0.
+     * @return The running pre-generator. Use it to show how far along generation is.
+     */
+    public static WorldPregenerator setupAndPregenerateWorld(World world, boolean setupSpawnPlatform, Double borderSize, int warningTime, int warningDist, int spawnRadius) {
+        setupWorld(world, setupSpawnPlatform, borderSize, warningTime, warningDist, spawnRadius);
+        return pregenerateWorld(world, 4, 18, true);
+    }
+
+    /**
+     * Generates every chunk inside the world's border in the background, spiralling out from the spawn.
+     * <p>
+     * Set up the border first, for example with {@link #setupWorld(World, boolean, Double, int, int, int)}.
+     * @param world The affected world.
+     * @param chunksPerTick The most chunks to generate every tick.
+     * @param minimumTPS Generation pauses while the server runs slower than this.
+     * @param unloadAfter If chunks should be unloaded after generating, to save memory.
+     * @return The running pre-generator. Use it to show how far along generation is.
+     */
+    public static WorldPregenerator pregenerateWorld(World world, int chunksPerTick, double minimumTPS, boolean unloadAfter) {
+        WorldPregenerator pregenerator = new WorldPregenerator(world, chunksPerTick, minimumTPS, unloadAfter);
+        pregenerator.start();
+        return pregenerator;
     }
 
     /**
      * Deletes and resets a world.
      * <p>
+     * The old world's files are deleted in the background.
+     * <p>
      * <a href="https://github.com/Duckulus/Bingo/blob/master/src/main/java/de/amin/bingo/BingoPlugin.java#L94">Code seen here!</a>
      * @apiNote This should be done in onLoad()! The plugin does not need to be started at STARTUP.
      * @param name Name of the world being reset.
      */
     public static void resetWorld(String name) throws IOException {
-        // Getting and deleting the main world
+        // Moving the main world out of the way, and deleting it in the background
         File world = new File(Bukkit.getWorldContainer(), name);
-        FileUtils.deleteDirectory(world);
+        if (world.exists()) {
+            File tombstone = WorldDeletion.tombstone(world, RetryPolicy.DEFAULT);
+            IOExecutor.get().execute(() -> FileUtils.deleteQuietly(tombstone));
+        }
 
         // Creating needed directories
         world.mkdirs();
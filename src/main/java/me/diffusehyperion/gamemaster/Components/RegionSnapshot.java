@@ -0,0 +1,558 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * A copy of the blocks in an area, which can be saved to a file and pasted back anywhere.
+ * <p>
+ * The area is split into chunk columns. Each column keeps a small palette of the block datas in it, and the blocks are stored as indexes into that palette,
+ * packed into longs with as few bits as the palette needs. A column of only air takes no space at all.
+ * Files are compressed, and read back through a memory mapped buffer, so a large arena is never copied onto the heap in one piece.
+ * @see GameWorld#captureRegion(Location, Location)
+ * @see GameWorld#pasteRegion(RegionSnapshot, Location)
+ */
+public class RegionSnapshot {
+
+    /**
+     * The folder in the plugin's folder that snapshots are saved to by {@link #save(String)}.
+     */
+    public static final String FOLDER = "snapshots";
+
+    /**
+     * The extension of saved snapshots.
+     */
+    public static final String EXTENSION = ".gmsnap";
+
+    private static final int MAGIC = 0x474D5253;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNKS_PER_TICK = 8;
+    private static final Metrics.Timer ENCODE_TIMER = Metrics.timer("snapshot.encode");
+    private static final Metrics.Counter PASTED_BLOCKS = Metrics.counter("snapshot.paste.blocks");
+
+    private final int sizeX, sizeY, sizeZ;
+    private final String[] palette;
+    private final Column[] columns;
+
+    /**
+     * One chunk's part of the area, with its own palette.
+     */
+    private static final class Column {
+        private final int offsetX, offsetZ, width, length;
+        private final int[] palette;
+        private final int bits;
+        private final long[] data;
+
+        private Column(int offsetX, int offsetZ, int width, int length, int[] palette, int bits, long[] data) {
+            this.offsetX = offsetX;
+            this.offsetZ = offsetZ;
+            this.width = width;
+            this.length = length;
+            this.palette = palette;
+            this.bits = bits;
+            this.data = data;
+        }
+
+        /**
+         * @return The index in the snapshot's palette of the block at an index in this column.
+         */
+        private int get(int index) {
+            if (bits == 0) {
+                return palette[0];
+            }
+            int perLong = 64 / bits;
+            long word = data[index / perLong];
+            return palette[(int) (word >>> (index % perLong * bits) & ((1L << bits) - 1))];
+        }
+    }
+
+    private RegionSnapshot(int sizeX, int sizeY, int sizeZ, String[] palette, Column[] columns) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = palette;
+        this.columns = columns;
+    }
+
+    /**
+     * Captures the blocks in an area.
+     * <p>
+     * Chunk snapshots are taken on the main thread, a few chunks every tick. They are then encoded on a background thread.
+     * loc1 and loc2 must have the same world.
+     * @param loc1 A corner of the area.
+     * @param loc2 Another corner of the area.
+     * @return A future which completes on a background thread with the snapshot.
+     */
+    public static CompletableFuture<RegionSnapshot> capture(Location loc1, Location loc2) {
+        if (loc1.getWorld() != loc2.getWorld()) {
+            throw new IllegalArgumentException("Location 1 and location 2's worlds must be the same!");
+        }
+        World world = loc1.getWorld();
+        assert world != null;
+        int startX = Math.min(loc1.getBlockX(), loc2.getBlockX());
+        int startY = Math.max(0, Math.min(loc1.getBlockY(), loc2.getBlockY()));
+        int startZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
+        int endX = Math.max(loc1.getBlockX(), loc2.getBlockX());
+        int endY = Math.min(world.getMaxHeight() - 1, Math.max(loc1.getBlockY(), loc2.getBlockY()));
+        int endZ = Math.max(loc1.getBlockZ(), loc2.getBlockZ());
+        if (startY > endY) {
+            throw new IllegalArgumentException("The area is outside of the world's height!");
+        }
+        CaptureTask task = new CaptureTask(world, startX >> 4, startZ >> 4, endX >> 4, endZ >> 4);
+        task.start();
+        return task.getFuture().thenApplyAsync(chunks -> encode(chunks, task.chunksX, startX, startY, startZ, endX, endY, endZ));
+    }
+
+    /**
+     * Pastes the snapshot, spread over several ticks. Blocks are pasted one chunk at a time, and blocks that are already right are skipped.
+     * <p>
+     * At most {@link BudgetedTask#DEFAULT_BUDGET_MILLIS} milliseconds will be spent pasting every tick.
+     * @param corner Where the snapshot's lowest corner should go.
+     * @return The running paste. Use {@link PasteTask#getFuture()} to find out when it is done.
+     */
+    public PasteTask paste(Location corner) {
+        return paste(corner, BudgetedTask.DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Pastes the snapshot, spread over several ticks. Blocks are pasted one chunk at a time, and blocks that are already right are skipped.
+     * <p>
+     * Pasting at a corner with the same position within its chunk as the captured area had keeps every column inside a single chunk.
+     * @param corner Where the snapshot's lowest corner should go.
+     * @param budgetMillis How many milliseconds can be spent pasting every tick.
+     * @return The running paste. Use {@link PasteTask#getFuture()} to find out when it is done.
+     */
+    public PasteTask paste(Location corner, long budgetMillis) {
+        PasteTask task = new PasteTask(this, corner, budgetMillis);
+        task.start();
+        return task;
+    }
+
+    /**
+     * Saves the snapshot to the plugin's {@link #FOLDER} folder in the background.
+     * @param name The name of the snapshot.
+     * @return A future which completes on a background thread once the file is written.
+     */
+    public CompletableFuture<File> save(String name) {
+        File file = fileFor(name);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                save(file);
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, IOExecutor.get());
+    }
+
+    /**
+     * Saves the snapshot to a file, waiting until it is written.
+     * @param file The file.
+     */
+    public void save(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(sizeZ);
+            out.writeInt(palette.length);
+            for (String data : palette) {
+                out.writeUTF(data);
+            }
+            out.writeInt(columns.length);
+            for (Column column : columns) {
+                out.writeInt(column.offsetX);
+                out.writeInt(column.offsetZ);
+                out.writeInt(column.width);
+                out.writeInt(column.length);
+                out.writeInt(column.palette.length);
+                for (int index : column.palette) {
+                    out.writeInt(index);
+                }
+                out.writeByte(column.bits);
+                out.writeInt(column.data.length);
+                for (long word : column.data) {
+                    out.writeLong(word);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        FileIO.write(file.toPath(), bytes.toByteArray());
+    }
+
+    /**
+     * Loads a snapshot from the plugin's {@link #FOLDER} folder in the background.
+     * @param name The name of the snapshot.
+     * @return A future which completes on a background thread with the snapshot.
+     */
+    public static CompletableFuture<RegionSnapshot> load(String name) {
+        File file = fileFor(name);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, IOExecutor.get());
+    }
+
+    /**
+     * Loads a snapshot from a file, waiting until it is read.
+     * @param file The file.
+     * @return The snapshot.
+     */
+    public static RegionSnapshot load(File file) throws IOException {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(FileIO.openMapped(file.toPath()), inflater, BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a region snapshot!");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has an unknown snapshot version: " + version);
+            }
+            int sizeX = in.readInt();
+            int sizeY = in.readInt();
+            int sizeZ = in.readInt();
+            String[] palette = new String[in.readInt()];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = in.readUTF();
+            }
+            Column[] columns = new Column[in.readInt()];
+            for (int i = 0; i < columns.length; i++) {
+                int offsetX = in.readInt();
+                int offsetZ = in.readInt();
+                int width = in.readInt();
+                int length = in.readInt();
+                int[] local = new int[in.readInt()];
+                for (int j = 0; j < local.length; j++) {
+                    local[j] = in.readInt();
+                    if (local[j] < 0 || local[j] >= palette.length) {
+                        throw new IOException(file + " is corrupted!");
+                    }
+                }
+                int bits = in.readUnsignedByte();
+                long[] data = new long[in.readInt()];
+                if (local.length == 0 || bits > 32 || data.length != (bits == 0 ? 0 : ((long) width * length * sizeY + 64 / bits - 1) / (64 / bits))) {
+                    throw new IOException(file + " is corrupted!");
+                }
+                for (int j = 0; j < data.length; j++) {
+                    data[j] = in.readLong();
+                }
+                columns[i] = new Column(offsetX, offsetZ, width, length, local, bits, data);
+            }
+            return new RegionSnapshot(sizeX, sizeY, sizeZ, palette, columns);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return How many blocks wide the snapshot is, along X.
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * @return How many blocks tall the snapshot is.
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * @return How many blocks long the snapshot is, along Z.
+     */
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    /**
+     * @return How many blocks are in the snapshot.
+     */
+    public long getVolume() {
+        return (long) sizeX * sizeY * sizeZ;
+    }
+
+    /**
+     * @return How many different block datas are in the snapshot.
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * @return Roughly how many bytes the packed blocks take up, not counting the palettes.
+     */
+    public long getPackedBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += (long) column.data.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Pastes a {@link RegionSnapshot}, spread over several ticks.
+     * @see RegionSnapshot#paste(Location, long)
+     */
+    public static class PasteTask extends BudgetedTask<PasteTask> {
+
+        private final RegionSnapshot snapshot;
+        private final World world;
+        private final int cornerX, cornerY, cornerZ;
+        private final int maxY;
+        private final BlockData[] parsed;
+
+        private int column = 0;
+        private int index = 0;
+        private long blocksProcessed = 0;
+        private long blocksChanged = 0;
+
+        private PasteTask(RegionSnapshot snapshot, Location corner, long budgetMillis) {
+            super(budgetMillis);
+            this.snapshot = snapshot;
+            this.world = corner.getWorld();
+            assert world != null;
+            this.cornerX = corner.getBlockX();
+            this.cornerY = corner.getBlockY();
+            this.cornerZ = corner.getBlockZ();
+            this.maxY = world.getMaxHeight() - 1;
+            this.parsed = new BlockData[snapshot.palette.length];
+        }
+
+        @Override
+        protected boolean step() {
+            Column[] columns = snapshot.columns;
+            if (column >= columns.length) {
+                return false;
+            }
+            Column current = columns[column];
+            int area = current.width * current.length;
+            int y = cornerY + index / area;
+            if (y >= 0 && y <= maxY) {
+                int x = cornerX + current.offsetX + index % current.width;
+                int z = cornerZ + current.offsetZ + index % area / current.width;
+                setBlock(world.getBlockAt(x, y, z), blockData(current.get(index)));
+            }
+            blocksProcessed++;
+            if (++index >= area * snapshot.sizeY) {
+                index = 0;
+                column++;
+            }
+            return column < columns.length;
+        }
+
+        @Override
+        protected PasteTask result() {
+            return this;
+        }
+
+        @Override
+        public double getProgress() {
+            long volume = snapshot.getVolume();
+            return volume == 0 ? 1 : (double) blocksProcessed / volume;
+        }
+
+        /**
+         * @return How many blocks have been checked so far.
+         */
+        public long getBlocksProcessed() {
+            return blocksProcessed;
+        }
+
+        /**
+         * @return How many blocks were actually changed so far.
+         */
+        public long getBlocksChanged() {
+            return blocksChanged;
+        }
+
+        private BlockData blockData(int index) {
+            BlockData data = parsed[index];
+            if (data == null) {
+                data = Bukkit.createBlockData(snapshot.palette[index]);
+                parsed[index] = data;
+            }
+            return data;
+        }
+
+        private void setBlock(Block block, BlockData data) {
+            // comparing the type first avoids building a block data for most blocks that need changing
+            if (block.getType() == data.getMaterial() && block.getBlockData().equals(data)) {
+                return;
+            }
+            block.setBlockData(data, false);
+            blocksChanged++;
+            PASTED_BLOCKS.increment();
+        }
+    }
+
+    /**
+     * Takes a snapshot of every chunk in the area, a few every tick.
+     */
+    private static class CaptureTask extends BudgetedTask<ChunkSnapshot[]> {
+
+        private final World world;
+        private final int minChunkX, minChunkZ;
+        private final int chunksX;
+        private final ChunkSnapshot[] chunks;
+        private int index = 0;
+
+        private CaptureTask(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            super(DEFAULT_BUDGET_MILLIS);
+            setMaxStepsPerTick(CHUNKS_PER_TICK);
+            this.world = world;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.chunksX = maxChunkX - minChunkX + 1;
+            this.chunks = new ChunkSnapshot[chunksX * (maxChunkZ - minChunkZ + 1)];
+        }
+
+        @Override
+        protected boolean step() {
+            if (index >= chunks.length) {
+                return false;
+            }
+            // heightmaps and biomes are not needed, so they are not copied
+            chunks[index] = world.getChunkAt(minChunkX + index % chunksX, minChunkZ + index / chunksX).getChunkSnapshot(false, false, false);
+            index++;
+            return index < chunks.length;
+        }
+
+        @Override
+        protected ChunkSnapshot[] result() {
+            return chunks;
+        }
+
+        @Override
+        public double getProgress() {
+            return chunks.length == 0 ? 1 : (double) index / chunks.length;
+        }
+    }
+
+    private static RegionSnapshot encode(ChunkSnapshot[] chunks, int chunksX, int startX, int startY, int startZ, int endX, int endY, int endZ) {
+        long start = ENCODE_TIMER.start();
+        try {
+            return encodeChunks(chunks, startX, startY, startZ, endX, endY, endZ);
+        } finally {
+            ENCODE_TIMER.stop(start);
+        }
+    }
+
+    private static RegionSnapshot encodeChunks(ChunkSnapshot[] chunks, int startX, int startY, int startZ, int endX, int endY, int endZ) {
+        int sizeY = endY - startY + 1;
+        List<BlockData> palette = new ArrayList<>();
+        Map<BlockData, Integer> paletteIndex = new HashMap<>();
+        Column[] columns = new Column[chunks.length];
+        int[] globals = new int[16 * 16 * sizeY];
+        for (int i = 0; i < chunks.length; i++) {
+            ChunkSnapshot chunk = chunks[i];
+            int chunkX = chunk.getX() << 4;
+            int chunkZ = chunk.getZ() << 4;
+            int columnStartX = Math.max(startX, chunkX);
+            int columnStartZ = Math.max(startZ, chunkZ);
+            int width = Math.min(endX, chunkX + 15) - columnStartX + 1;
+            int length = Math.min(endZ, chunkZ + 15) - columnStartZ + 1;
+            int count = 0;
+            BlockData last = null;
+            int lastIndex = -1;
+            for (int y = startY; y <= endY; y++) {
+                for (int z = columnStartZ - chunkZ; z < columnStartZ - chunkZ + length; z++) {
+                    for (int x = columnStartX - chunkX; x < columnStartX - chunkX + width; x++) {
+                        BlockData data = chunk.getBlockData(x, y, z);
+                        // runs of the same block are common, so the last block is checked before the map
+                        if (!data.equals(last)) {
+                            Integer index = paletteIndex.get(data);
+                            if (index == null) {
+                                index = palette.size();
+                                palette.add(data);
+                                paletteIndex.put(data, index);
+                            }
+                            last = data;
+                            lastIndex = index;
+                        }
+                        globals[count++] = lastIndex;
+                    }
+                }
+            }
+            columns[i] = pack(columnStartX - startX, columnStartZ - startZ, width, length, globals, count, palette.size());
+        }
+        String[] strings = new String[palette.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = palette.get(i).getAsString();
+        }
+        return new RegionSnapshot(endX - startX + 1, sizeY, endZ - startZ + 1, strings, columns);
+    }
+
+    /**
+     * Builds a column's palette from the snapshot palette indexes of its blocks, and packs the blocks with as few bits as that palette needs.
+     */
+    private static Column pack(int offsetX, int offsetZ, int width, int length, int[] globals, int count, int paletteSize) {
+        int[] toLocal = new int[paletteSize];
+        Arrays.fill(toLocal, -1);
+        int[] local = new int[Math.min(paletteSize, count)];
+        int localSize = 0;
+        for (int i = 0; i < count; i++) {
+            int global = globals[i];
+            if (toLocal[global] < 0) {
+                toLocal[global] = localSize;
+                local[localSize++] = global;
+            }
+        }
+        local = Arrays.copyOf(local, localSize);
+        int bits = localSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(localSize - 1);
+        if (bits == 0) {
+            return new Column(offsetX, offsetZ, width, length, local, 0, new long[0]);
+        }
+        // blocks never span two longs, which wastes a few bits but keeps reading simple
+        int perLong = 64 / bits;
+        long[] data = new long[(count + perLong - 1) / perLong];
+        for (int i = 0; i < count; i++) {
+            data[i / perLong] |= (long) toLocal[globals[i]] << (i % perLong * bits);
+        }
+        return new Column(offsetX, offsetZ, width, length, local, bits, data);
+    }
+
+    private static File fileFor(String name) {
+        return new File(new File(plugin.getDataFolder(), FOLDER), name + EXTENSION);
+    }
+}
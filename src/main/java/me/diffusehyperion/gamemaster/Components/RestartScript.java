@@ -0,0 +1,165 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the restart script written by {@link GameServer#setupRestart(GameServer.OSTypes, String, RestartScript)}.
+ * <p>
+ * A script with nothing set is a plain "java -jar", the same as {@link GameServer#setupRestart()} always wrote.
+ * Heap sizes, a garbage collector and extra flags can be added, as well as a class data sharing (AppCDS) archive.
+ */
+public class RestartScript {
+
+    /**
+     * Garbage collectors the script can choose.
+     */
+    public enum GC {
+        /**
+         * Let the JVM choose.
+         */
+        DEFAULT(),
+        /**
+         * G1, tuned for short pauses the way most server owners run it.
+         */
+        G1("-XX:+UseG1GC", "-XX:+ParallelRefProcEnabled", "-XX:MaxGCPauseMillis=200", "-XX:+DisableExplicitGC"),
+        /**
+         * The parallel collector. Faster overall, but with longer pauses.
+         */
+        PARALLEL("-XX:+UseParallelGC"),
+        /**
+         * ZGC. Needs Java 15 or newer.
+         */
+        ZGC("-XX:+UseZGC"),
+        /**
+         * Shenandoah. Only in some Java builds.
+         */
+        SHENANDOAH("-XX:+UseShenandoahGC");
+
+        private final String[] flags;
+
+        GC(String... flags) {
+            this.flags = flags;
+        }
+    }
+
+    private String java = "java";
+    private String minHeap;
+    private String maxHeap;
+    private GC gc = GC.DEFAULT;
+    private String cdsArchive;
+    private final List<String> extraFlags = new ArrayList<>();
+
+    /**
+     * @param java The java command or path to use. Default is "java".
+     * @return This script.
+     */
+    public RestartScript setJava(String java) {
+        this.java = java;
+        return this;
+    }
+
+    /**
+     * Sets both the starting and largest heap size. Setting them the same avoids the heap being resized while the server runs.
+     * @param heap The heap size, such as 4G or 2048M.
+     * @return This script.
+     */
+    public RestartScript setHeap(String heap) {
+        return setHeap(heap, heap);
+    }
+
+    /**
+     * @param minHeap The starting heap size, such as 2G. Set to null to leave it to the JVM.
+     * @param maxHeap The largest heap size, such as 4G. Set to null to leave it to the JVM.
+     * @return This script.
+     */
+    public RestartScript setHeap(String minHeap, String maxHeap) {
+        this.minHeap = minHeap;
+        this.maxHeap = maxHeap;
+        return this;
+    }
+
+    /**
+     * @param gc The garbage collector.
+     * @return This script.
+     */
+    public RestartScript setGC(GC gc) {
+        this.gc = gc;
+        return this;
+    }
+
+    /**
+     * Uses a class data sharing archive, so classes load faster on restart. Needs Java 13 or newer.
+     * <p>
+     * If the archive does not exist yet, the script asks the JVM to create it when the server stops, and later restarts use it.
+     * @param archive The path to the archive, such as gamemaster.jsa. Set to null to not use one.
+     * @return This script.
+     */
+    public RestartScript setCDSArchive(String archive) {
+        this.cdsArchive = archive;
+        return this;
+    }
+
+    /**
+     * @param flags Extra JVM flags to add, such as -Dfile.encoding=UTF-8.
+     * @return This script.
+     */
+    public RestartScript addFlags(String... flags) {
+        Collections.addAll(extraFlags, flags);
+        return this;
+    }
+
+    /**
+     * @return The JVM flags, not counting the class data sharing archive.
+     */
+    public List<String> getFlags() {
+        List<String> flags = new ArrayList<>();
+        if (minHeap != null) {
+            flags.add("-Xms" + minHeap);
+        }
+        if (maxHeap != null) {
+            flags.add("-Xmx" + maxHeap);
+        }
+        Collections.addAll(flags, gc.flags);
+        flags.addAll(extraFlags);
+        return flags;
+    }
+
+    /**
+     * Writes the script.
+     * @param OS The OS the script is for. {@link GameServer#getOS()}
+     * @param serverJar The server's jar file name.
+     * @return The script's contents.
+     */
+    public String build(GameServer.OSTypes OS, String serverJar) {
+        StringBuilder command = new StringBuilder(java);
+        for (String flag : getFlags()) {
+            command.append(' ').append(flag);
+        }
+        String jar = " -jar " + serverJar + " --nogui";
+        if (OS == GameServer.OSTypes.Windows) {
+            String terminator = GameServer.lineTerminators.Windows.toString();
+            if (cdsArchive == null) {
+                return command + jar;
+            }
+            return "@echo off" + terminator
+                    + "if exist \"" + cdsArchive + "\" (" + terminator
+                    + command + " -XX:SharedArchiveFile=\"" + cdsArchive + "\"" + jar + terminator
+                    + ") else (" + terminator
+                    + command + " -XX:ArchiveClassesAtExit=\"" + cdsArchive + "\"" + jar + terminator
+                    + ")";
+        }
+        String terminator = GameServer.lineTerminators.Unix.toString();
+        String shell = OS == GameServer.OSTypes.Solaris ? "#!/usr/xpg4/bin/sh" : "#!/bin/sh";
+        if (cdsArchive == null) {
+            return shell + terminator + command + jar;
+        }
+        return shell + terminator
+                + "if [ -f \"" + cdsArchive + "\" ]; then" + terminator
+                + "    exec " + command + " -XX:SharedArchiveFile=\"" + cdsArchive + "\"" + jar + terminator
+                + "else" + terminator
+                + "    exec " + command + " -XX:ArchiveClassesAtExit=\"" + cdsArchive + "\"" + jar + terminator
+                + "fi" + terminator;
+    }
+}
@@ -0,0 +1,168 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Hands information from a server to the next one after {@link GameServer#restart(String)}.
+ * <p>
+ * Before restarting, the reason and the checks that already passed, such as {@link GameServer#checkForServerProperties()}, are saved to a file in the plugin's folder.
+ * When the server starts again, the file is read and deleted, and the time taken until players can join is logged.
+ * Those checks are only skipped if {@link StartupFingerprint} finds that the files they look at have not changed since, as they may have passed long before the restart.
+ */
+public class RestartState {
+
+    /**
+     * The name of the file in the plugin's folder.
+     */
+    public static final String FILE_NAME = "restart-state.properties";
+
+    /**
+     * How old the file can be before it is ignored. A file older than this was most likely left behind by a crash.
+     */
+    public static final long MAX_AGE_MILLIS = 10 * 60 * 1000;
+
+    private static RestartState previous;
+    private static final Set<String> passedChecks = new LinkedHashSet<>();
+
+    private final String reason;
+    private final long restartedAt;
+    private final Set<String> checks;
+
+    private RestartState(String reason, long restartedAt, Set<String> checks) {
+        this.reason = reason;
+        this.restartedAt = restartedAt;
+        this.checks = Collections.unmodifiableSet(checks);
+    }
+
+    /**
+     * Reads and deletes the file left by the last restart. This is done by GameMaster when it loads.
+     * @param dataFolder The plugin's folder.
+     * @return What the last server handed over, or null if it did not restart through {@link GameServer#restart(String)}.
+     */
+    public static RestartState load(File dataFolder) {
+        File file = new File(dataFolder, FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            Properties properties = new Properties();
+            properties.load(new StringReader(FileIO.read(file.toPath(), StandardCharsets.ISO_8859_1)));
+            long restartedAt = Long.parseLong(properties.getProperty("restarted-at", "0"));
+            Set<String> checks = new LinkedHashSet<>();
+            for (String check : properties.getProperty("passed-checks", "").split(",")) {
+                if (!check.isEmpty()) {
+                    checks.add(check);
+                }
+            }
+            if (System.currentTimeMillis() - restartedAt <= MAX_AGE_MILLIS) {
+                previous = new RestartState(properties.getProperty("reason", ""), restartedAt, checks);
+            }
+        } catch (IOException | NumberFormatException e) {
+            Bukkit.getLogger().warning("Could not read " + FILE_NAME + ", doing every startup check: " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            Bukkit.getLogger().warning("Could not delete " + FILE_NAME + ": " + e.getMessage());
+        }
+        return previous;
+    }
+
+    /**
+     * Saves the reason and every check that passed, for the next server to read. This is done by {@link GameServer#restart(String)}.
+     * @param reason Why the server is restarting.
+     */
+    public static void save(String reason) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("reason", reason);
+        properties.setProperty("restarted-at", String.valueOf(System.currentTimeMillis()));
+        properties.setProperty("passed-checks", String.join(",", passedChecks));
+        StringWriter writer = new StringWriter();
+        properties.store(writer, "Written by GameMaster before restarting. Deleted on the next start.");
+        File dataFolder = plugin.getDataFolder();
+        dataFolder.mkdirs();
+        FileIO.write(new File(dataFolder, FILE_NAME).toPath(), writer.toString(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return What the last server handed over, or null if it did not restart through {@link GameServer#restart(String)}.
+     */
+    public static RestartState getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Remembers that a check passed, so it is skipped after the next restart.
+     * @param check The name of the check.
+     */
+    public static void markPassed(String check) {
+        passedChecks.add(check);
+    }
+
+    /**
+     * @param check The name of the check.
+     * @return If the check passed before the server restarted, and the server files have not changed since. The check is remembered for the next restart too.
+     */
+    public static boolean hasPassed(String check) {
+        if (previous != null && previous.checks.contains(check) && StartupFingerprint.isValid()) {
+            markPassed(check);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Logs how long it took until players could join, once the server finishes starting. This is done by GameMaster when it enables.
+     */
+    public static void logTimeToPlayable() {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        // the first tick only runs once every plugin is enabled and the worlds are loaded
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            long now = System.currentTimeMillis();
+            String message = "Server playable " + (now - jvmStart) + "ms after the JVM started";
+            if (previous != null) {
+                message += ", " + (now - previous.restartedAt) + "ms after restarting (" + previous.reason + ")";
+                if (StartupFingerprint.isValid()) {
+                    message += ", skipped " + previous.checks.size() + " startup check(s)";
+                }
+            }
+            plugin.getLogger().info(message + ".");
+        });
+    }
+
+    /**
+     * @return Why the server restarted.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return When the restart started, in milliseconds since the epoch.
+     */
+    public long getRestartedAt() {
+        return restartedAt;
+    }
+
+    /**
+     * @return The checks that had passed before the restart.
+     */
+    public Set<String> getChecks() {
+        return checks;
+    }
+}
@@ -0,0 +1,173 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Finds the surface of the world, and safe places to stand on it.
+ * <p>
+ * Surfaces are found using the world's heightmap instead of scanning down from the top of the world.
+ * Safe places are looked for on the ground, under any grass, flowers or snow layers on top of it.
+ * The {@link ChunkSnapshot} methods do not touch the world, so they can be used off the main thread.
+ */
+public class SafeLocationFinder {
+
+    /**
+     * Blocks that hurt players standing on or in them.
+     */
+    public static final Set<Material> DANGEROUS = EnumSet.of(Material.LAVA, Material.FIRE, Material.CACTUS, Material.MAGMA_BLOCK);
+
+    /**
+     * Get the Y of the highest non-air block in a column.
+     * <p>
+     * This loads the chunk if it is not loaded yet.
+     * @param world The world to check.
+     * @param x The X of the column.
+     * @param z The Z of the column.
+     * @return The Y of the highest non-air block, or 0 if the column is empty.
+     */
+    public static int findSurfaceY(World world, int x, int z) {
+        // depending on the server version, the heightmap gives either the highest block or the air above it
+        int y = Math.min(world.getHighestBlockYAt(x, z), world.getMaxHeight() - 1);
+        while (y > 0 && isAir(world.getBlockAt(x, y, z).getType())) {
+            y--;
+        }
+        return y;
+    }
+
+    /**
+     * Get the Y of the highest non-air block in a column of a chunk snapshot.
+     * <p>
+     * The snapshot must have been taken with its heightmap. This is safe to use off the main thread.
+     * @param snapshot The chunk snapshot.
+     * @param x The X of the column inside the chunk, from 0 to 15.
+     * @param z The Z of the column inside the chunk, from 0 to 15.
+     * @param maxHeight The world's build height.
+     * @return The Y of the highest non-air block, or 0 if the column is empty.
+     */
+    public static int findSurfaceY(ChunkSnapshot snapshot, int x, int z, int maxHeight) {
+        int y = Math.min(snapshot.getHighestBlockYAt(x, z), maxHeight - 1);
+        while (y > 0 && isAir(snapshot.getBlockType(x, y, z))) {
+            y--;
+        }
+        return y;
+    }
+
+    /**
+     * Get the Y of the ground in a column, which is the highest block that cannot be walked through.
+     * <p>
+     * Grass, flowers and snow layers on top of the ground are skipped. Water, lava and dangerous blocks count as ground, so they can be checked with {@link #isSafeGround(Material)}.
+     * This loads the chunk if it is not loaded yet.
+     * @param world The world to check.
+     * @param x The X of the column.
+     * @param z The Z of the column.
+     * @return The Y of the ground, or 0 if there is none.
+     */
+    public static int findGroundY(World world, int x, int z) {
+        int y = findSurfaceY(world, x, z);
+        while (y > 0 && isPassable(world.getBlockAt(x, y, z).getType())) {
+            y--;
+        }
+        return y;
+    }
+
+    /**
+     * Get the Y of the ground in a column of a chunk snapshot. See {@link #findGroundY(World, int, int)}.
+     * <p>
+     * The snapshot must have been taken with its heightmap. This is safe to use off the main thread.
+     * @param snapshot The chunk snapshot.
+     * @param x The X of the column inside the chunk, from 0 to 15.
+     * @param z The Z of the column inside the chunk, from 0 to 15.
+     * @param maxHeight The world's build height.
+     * @return The Y of the ground, or 0 if there is none.
+     */
+    public static int findGroundY(ChunkSnapshot snapshot, int x, int z, int maxHeight) {
+        int y = findSurfaceY(snapshot, x, z, maxHeight);
+        while (y > 0 && isPassable(snapshot.getBlockType(x, y, z))) {
+            y--;
+        }
+        return y;
+    }
+
+    /**
+     * Check if a block is safe to stand on.
+     * @param ground The block being stood on.
+     * @return If it is solid and does not hurt.
+     */
+    public static boolean isSafeGround(Material ground) {
+        return ground.isSolid() && !DANGEROUS.contains(ground);
+    }
+
+    /**
+     * Finds a safe place to stand, checking columns in growing rings around a center column.
+     * <p>
+     * This runs on the main thread, and loads every chunk it checks.
+     * @param world The world to search.
+     * @param x The X of the center column.
+     * @param z The Z of the center column.
+     * @param radius How far away from the center to search.
+     * @return The center of the block above the safe ground, or null if nothing was found.
+     */
+    public static Location findSafeLocation(World world, int x, int z, int radius) {
+        for (int ring = 0; ring <= radius; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.abs(dx) != ring && Math.abs(dz) != ring) {
+                        // inside the ring, already checked
+                        continue;
+                    }
+                    int y = findGroundY(world, x + dx, z + dz);
+                    if (y > 0 && y + 2 < world.getMaxHeight() && isSafeGround(world.getBlockAt(x + dx, y, z + dz).getType())) {
+                        return new Location(world, x + dx + 0.5, y + 1, z + dz + 0.5);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a safe place to stand inside a chunk snapshot, checking columns in growing rings around the chunk's center.
+     * <p>
+     * This is safe to use off the main thread.
+     * @param snapshot The chunk snapshot. It must have been taken with its heightmap.
+     * @param world The world the snapshot came from, used for the returned location.
+     * @return The center of the block above the safe ground, or null if nothing was found.
+     */
+    public static Location findSafeLocation(ChunkSnapshot snapshot, World world) {
+        int maxHeight = world.getMaxHeight();
+        for (int ring = 0; ring <= 8; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.abs(dx) != ring && Math.abs(dz) != ring) {
+                        continue;
+                    }
+                    int x = 8 + dx;
+                    int z = 8 + dz;
+                    if (x < 0 || x > 15 || z < 0 || z > 15) {
+                        continue;
+                    }
+                    int y = findGroundY(snapshot, x, z, maxHeight);
+                    if (y > 0 && y + 2 < maxHeight && isSafeGround(snapshot.getBlockType(x, y, z))) {
+                        return new Location(world, (snapshot.getX() << 4) + x + 0.5, y + 1, (snapshot.getZ() << 4) + z + 0.5);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // air, grass, flowers and snow layers, but not liquids or anything that hurts
+    private static boolean isPassable(Material material) {
+        return !material.isSolid() && material != Material.WATER && material != Material.LAVA && !DANGEROUS.contains(material);
+    }
+
+    private static boolean isAir(Material material) {
+        return material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR;
+    }
+}
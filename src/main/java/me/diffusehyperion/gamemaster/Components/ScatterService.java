@@ -0,0 +1,201 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.Utility.SpatialGrid;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldBorder;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Spreads players out across the map, to random safe spots inside the world border.
+ * <p>
+ * Candidate chunks are loaded a few at a time on the main thread, and searched for safe spots in parallel on worker threads using chunk snapshots.
+ * Spots that are too close to an already picked spot are rejected using a {@link SpatialGrid}.
+ */
+public class ScatterService {
+
+    /**
+     * How far inside the border spots are picked, in blocks.
+     */
+    public static final int BORDER_MARGIN = 8;
+
+    /**
+     * Finds safe, spread out spots inside a world's border.
+     * <p>
+     * Fewer spots than asked for may be found, if the border is too small for the minimum distance or too much of the map is unsafe (such as oceans).
+     * @param world The world to search.
+     * @param count How many spots to find.
+     * @param minDistance How far apart every spot must be, in blocks.
+     * @param chunksPerTick The most chunks to load every tick.
+     * @param maxAttempts The most chunks to try before giving up.
+     * @return A future which completes on the main thread with the found spots.
+     */
+    public static CompletableFuture<List<Location>> findLocations(World world, int count, double minDistance, int chunksPerTick, int maxAttempts) {
+        ScatterTask task = new ScatterTask(world, count, minDistance, chunksPerTick, maxAttempts);
+        return task.start();
+    }
+
+    /**
+     * Finds safe, spread out spots inside a world's border. Up to 4 chunks are loaded every tick, and up to 20 chunks are tried per spot.
+     * @see #findLocations(World, int, double, int, int)
+     * @param world The world to search.
+     * @param count How many spots to find.
+     * @param minDistance How far apart every spot must be, in blocks.
+     * @return A future which completes on the main thread with the found spots.
+     */
+    public static CompletableFuture<List<Location>> findLocations(World world, int count, double minDistance) {
+        return findLocations(world, count, minDistance, 4, Math.max(count * 20, 100));
+    }
+
+    /**
+     * Finds spots for every player and teleports them there, a few players every tick.
+     * @param players The players to scatter.
+     * @param world The world to scatter them in.
+     * @param minDistance How far apart every player must be, in blocks.
+     * @param playersPerTick How many players to teleport every tick.
+     * @return A future which completes on the main thread with the players that could not be given a spot.
+     */
+    public static CompletableFuture<List<Player>> scatter(List<? extends Player> players, World world, double minDistance, int playersPerTick) {
+        return findLocations(world, players.size(), minDistance).thenCompose(locations -> {
+            CompletableFuture<List<Player>> future = new CompletableFuture<>();
+            teleportStaggered(players, locations, playersPerTick, future);
+            return future;
+        });
+    }
+
+    /**
+     * Teleports players to their spots, a few players every tick, so their chunks do not all load at once.
+     * <p>
+     * The first player goes to the first spot, and so on. Players without a spot are left alone.
+     * @param players The players to teleport.
+     * @param locations The spots to teleport them to.
+     * @param playersPerTick How many players to teleport every tick.
+     * @return The running task.
+     */
+    public static BukkitRunnable teleportStaggered(List<? extends Player> players, List<Location> locations, int playersPerTick) {
+        return teleportStaggered(players, locations, playersPerTick, new CompletableFuture<>());
+    }
+
+    private static BukkitRunnable teleportStaggered(List<? extends Player> players, List<Location> locations, int playersPerTick, CompletableFuture<List<Player>> leftOver) {
+        List<Player> queue = new ArrayList<>(players);
+        Iterator<Location> spots = locations.iterator();
+        BukkitRunnable task = new BukkitRunnable() {
+            int index = 0;
+
+            @Override
+            public void run() {
+                for (int i = 0; i < playersPerTick && index < queue.size() && spots.hasNext(); i++, index++) {
+                    Player player = queue.get(index);
+                    if (player.isOnline()) {
+                        player.teleport(spots.next());
+                    }
+                }
+                if (index >= queue.size() || !spots.hasNext()) {
+                    this.cancel();
+                    leftOver.complete(new ArrayList<>(queue.subList(index, queue.size())));
+                }
+            }
+        };
+        task.runTaskTimer(plugin, 0, 1);
+        return task;
+    }
+
+    private static class ScatterTask extends BudgetedTask<List<Location>> {
+        private final World world;
+        private final int count;
+        private final int maxAttempts;
+        private final SpatialGrid grid;
+        private final List<Location> found = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Set<Long> triedChunks = new HashSet<>();
+        private final Random random = new Random();
+        private final double minX, minZ, width;
+        private int attempts = 0;
+
+        ScatterTask(World world, int count, double minDistance, int chunksPerTick, int maxAttempts) {
+            super(DEFAULT_BUDGET_MILLIS);
+            setMaxStepsPerTick(chunksPerTick);
+            this.world = world;
+            this.count = count;
+            this.maxAttempts = maxAttempts;
+            this.grid = new SpatialGrid(minDistance);
+
+            WorldBorder border = world.getWorldBorder();
+            double half = Math.max(0, border.getSize() / 2 - BORDER_MARGIN);
+            this.minX = border.getCenter().getX() - half;
+            this.minZ = border.getCenter().getZ() - half;
+            this.width = half * 2;
+        }
+
+        @Override
+        protected boolean step() {
+            if (grid.size() >= count) {
+                return false;
+            }
+            if (attempts >= maxAttempts) {
+                // out of attempts, wait for the last snapshots to be searched
+                if (pending.get() > 0) {
+                    yieldTick();
+                    return true;
+                }
+                return false;
+            }
+            if (pending.get() >= count - grid.size()) {
+                // enough chunks are being searched already
+                yieldTick();
+                return true;
+            }
+            attempts++;
+            int chunkX = (int) Math.floor(minX + random.nextDouble() * width) >> 4;
+            int chunkZ = (int) Math.floor(minZ + random.nextDouble() * width) >> 4;
+            if (!triedChunks.add(((long) chunkX << 32) ^ (chunkZ & 0xFFFFFFFFL))) {
+                return true;
+            }
+            ChunkSnapshot snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(true, false, false);
+            pending.incrementAndGet();
+            ForkJoinPool.commonPool().execute(() -> {
+                try {
+                    Location location = SafeLocationFinder.findSafeLocation(snapshot, world);
+                    if (location != null && insideBorder(location) && grid.tryAdd(location.getX(), location.getZ(), count)) {
+                        found.add(location);
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+            return true;
+        }
+
+        @Override
+        protected List<Location> result() {
+            synchronized (found) {
+                return new ArrayList<>(found);
+            }
+        }
+
+        @Override
+        public double getProgress() {
+            return Math.max((double) grid.size() / count, (double) attempts / maxAttempts);
+        }
+
+        private boolean insideBorder(Location location) {
+            return location.getX() >= minX && location.getX() <= minX + width && location.getZ() >= minZ && location.getZ() <= minZ + width;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.FileIO;
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Lets the startup checks in {@link GameServer} be skipped when nothing they look at has changed since the last start.
+ * <p>
+ * The sizes, last modified times and SHA-256 hashes of server.properties, bukkit.yml, spigot.yml, the restart script and the server jar are saved in the plugin's folder,
+ * along with the checks that passed and the server jar that was found. On the next start, the files are compared with what was saved.
+ * A file is only hashed again if its size matches but its last modified time does not, so an unchanged server costs a few file lookups.
+ * <p>
+ * The fingerprint is saved once the server finishes starting. If a file changed after the last check passed, the checks are not saved as passed, so an edit made then is checked on the next start.
+ */
+public class StartupFingerprint {
+
+    /**
+     * The name of the file in the plugin's folder.
+     */
+    public static final String FILE_NAME = "startup-fingerprint.properties";
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        private Entry(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    private static final Map<String, Entry> known = new LinkedHashMap<>();
+    private static final Set<String> recordedChecks = new LinkedHashSet<>();
+    private static final Set<String> passedChecks = new LinkedHashSet<>();
+    // path -> size and last modified time when a check last passed, without a hash
+    private static final Map<String, Entry> checkedState = new HashMap<>();
+    private static String recordedJar;
+    private static File serverJar;
+    private static long recordedFullCheckNanos = -1;
+    private static boolean valid = false;
+    private static long validateNanos = 0;
+    private static long checkNanos = 0;
+    private static int skippedChecks = 0;
+    private static boolean started = false;
+
+    /**
+     * Reads the saved fingerprint, and compares it with the files on disk. This is done by GameMaster when it loads.
+     * @param dataFolder The plugin's folder.
+     * @return If nothing changed, and the startup checks can be skipped.
+     */
+    public static synchronized boolean load(File dataFolder) {
+        long start = System.nanoTime();
+        valid = false;
+        File file = new File(dataFolder, FILE_NAME);
+        if (file.exists()) {
+            try {
+                Properties properties = new Properties();
+                properties.load(new StringReader(FileIO.read(file.toPath(), StandardCharsets.ISO_8859_1)));
+                valid = read(properties);
+            } catch (IOException | RuntimeException e) {
+                Bukkit.getLogger().warning("Could not read " + FILE_NAME + ", doing every startup check: " + e.getMessage());
+                known.clear();
+                recordedChecks.clear();
+            }
+        }
+        validateNanos = System.nanoTime() - start;
+        return valid;
+    }
+
+    /**
+     * @return If nothing changed since the last start.
+     */
+    public static synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @param check The name of the check.
+     * @return If the check passed on the last start, and nothing it looks at has changed since.
+     */
+    public static synchronized boolean hasPassed(String check) {
+        if (valid && recordedChecks.contains(check)) {
+            if (passedChecks.add(check)) {
+                skippedChecks++;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers that a check passed, to be saved with the fingerprint.
+     * @param check The name of the check.
+     */
+    public static synchronized void markPassed(String check) {
+        passedChecks.add(check);
+        for (File file : trackedFiles()) {
+            checkedState.put(file.getAbsolutePath(), stat(file));
+        }
+    }
+
+    /**
+     * @return The server jar found on the last start, or null if it changed or was never found.
+     */
+    public static synchronized File getServerJar() {
+        if (serverJar == null && valid && recordedJar != null) {
+            File jar = new File(recordedJar);
+            if (jar.isFile()) {
+                serverJar = jar;
+            }
+        }
+        return serverJar;
+    }
+
+    /**
+     * Remembers the server jar, so it is fingerprinted and does not need to be searched for on the next start.
+     * @param jar The server jar.
+     */
+    public static synchronized void setServerJar(File jar) {
+        serverJar = jar;
+        checkedState.put(jar.getAbsolutePath(), stat(jar));
+    }
+
+    /**
+     * Adds to the time spent on startup checks, which is logged once the server finishes starting.
+     * @param nanos How long a check took.
+     */
+    public static synchronized void addCheckTime(long nanos) {
+        if (!started) {
+            checkNanos += nanos;
+        }
+    }
+
+    /**
+     * Saves the fingerprint of the files as they are now. Files that have not changed since they were last fingerprinted are not hashed again.
+     * <p>
+     * The checks are only saved as passed if no file changed since the last check passed, as they may not hold for the files as they are now.
+     * @param dataFolder The plugin's folder.
+     */
+    public static synchronized void save(File dataFolder) throws IOException {
+        Properties properties = new Properties();
+        List<File> files = trackedFiles();
+        boolean changedSinceChecks = false;
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            String path = file.getAbsolutePath();
+            Entry entry = fingerprint(file, known.get(path));
+            known.put(path, entry);
+            Entry checked = checkedState.get(path);
+            if (checked == null || checked.size != entry.size || checked.modified != entry.modified) {
+                changedSinceChecks = true;
+            }
+            properties.setProperty("file." + i + ".path", path);
+            properties.setProperty("file." + i + ".size", String.valueOf(entry.size));
+            properties.setProperty("file." + i + ".modified", String.valueOf(entry.modified));
+            properties.setProperty("file." + i + ".hash", entry.hash);
+        }
+        properties.setProperty("passed-checks", changedSinceChecks ? "" : String.join(",", passedChecks));
+        if (serverJar != null) {
+            properties.setProperty("server-jar", serverJar.getAbsolutePath());
+        }
+        // the time a full check took is kept, so it can be compared with the fast path
+        long fullCheckNanos = skippedChecks == 0 ? checkNanos : recordedFullCheckNanos;
+        properties.setProperty("full-check-nanos", String.valueOf(fullCheckNanos));
+        StringWriter writer = new StringWriter();
+        properties.store(writer, "Written by GameMaster to skip startup checks when nothing changed.");
+        dataFolder.mkdirs();
+        FileIO.write(new File(dataFolder, FILE_NAME).toPath(), writer.toString(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Logs how long the startup checks took once the server finishes starting, then saves the fingerprint in the background.
+     * This is done by GameMaster when it enables.
+     */
+    public static void logAndSaveAfterStartup() {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            synchronized (StartupFingerprint.class) {
+                started = true;
+                String message = "Startup checks took " + String.format("%.2f", checkNanos / 1e6) + "ms, plus "
+                        + String.format("%.2f", validateNanos / 1e6) + "ms comparing the fingerprint";
+                if (skippedChecks > 0) {
+                    message += ". Skipped " + skippedChecks + " check(s) as nothing changed";
+                    if (recordedFullCheckNanos >= 0) {
+                        message += ", the full checks took " + String.format("%.2f", recordedFullCheckNanos / 1e6) + "ms";
+                    }
+                }
+                plugin.getLogger().info(message + ".");
+            }
+            IOExecutor.get().execute(() -> {
+                try {
+                    save(plugin.getDataFolder());
+                } catch (IOException e) {
+                    Bukkit.getLogger().warning("Could not save " + FILE_NAME + ": " + e.getMessage());
+                }
+            });
+        });
+    }
+
+    private static boolean read(Properties properties) throws IOException {
+        known.clear();
+        recordedChecks.clear();
+        for (String check : properties.getProperty("passed-checks", "").split(",")) {
+            if (!check.isEmpty()) {
+                recordedChecks.add(check);
+            }
+        }
+        recordedJar = properties.getProperty("server-jar");
+        recordedFullCheckNanos = Long.parseLong(properties.getProperty("full-check-nanos", "-1"));
+        Set<String> expected = new LinkedHashSet<>();
+        for (File file : trackedFiles()) {
+            expected.add(file.getAbsolutePath());
+        }
+        boolean unchanged = true;
+        for (int i = 0; properties.containsKey("file." + i + ".path"); i++) {
+            String path = properties.getProperty("file." + i + ".path");
+            Entry saved = new Entry(Long.parseLong(properties.getProperty("file." + i + ".size")),
+                    Long.parseLong(properties.getProperty("file." + i + ".modified")),
+                    properties.getProperty("file." + i + ".hash"));
+            expected.remove(path);
+            File file = new File(path);
+            // a different size is already a change, so the file is not hashed
+            if ((file.isFile() ? file.length() : -1) != saved.size) {
+                unchanged = false;
+                continue;
+            }
+            Entry current = fingerprint(file, saved);
+            if (current.hash.equals(saved.hash)) {
+                known.put(path, current);
+            } else {
+                unchanged = false;
+            }
+        }
+        // a config file that wasn't fingerprinted last time counts as a change
+        return unchanged && expected.isEmpty();
+    }
+
+    private static List<File> trackedFiles() {
+        List<File> files = new ArrayList<>();
+        files.add(ConfigStore.serverProperties().getFile());
+        files.add(ConfigStore.bukkitYML().getFile());
+        files.add(ConfigStore.spigotYML().getFile());
+        // restartSetup also depends on the script set in spigot.yml existing
+        try {
+            File script = GameServer.getRestartScript();
+            if (script != null) {
+                files.add(script.getAbsoluteFile());
+            }
+        } catch (IOException | InvalidConfigurationException e) {
+            // restartSetup cannot pass without reading spigot.yml either
+        }
+        File jar = serverJar != null ? serverJar : (recordedJar != null ? new File(recordedJar) : null);
+        if (jar != null) {
+            files.add(jar.getAbsoluteFile());
+        }
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Fingerprints a file, reusing the old hash if the size and last modified time have not changed.
+     */
+    private static Entry fingerprint(File file, Entry previous) throws IOException {
+        if (!file.isFile()) {
+            return new Entry(-1, -1, "missing");
+        }
+        long size = file.length();
+        long modified = file.lastModified();
+        if (previous != null && previous.size == size && previous.modified == modified) {
+            return previous;
+        }
+        return new Entry(size, modified, hash(file));
+    }
+
+    private static Entry stat(File file) {
+        return file.isFile() ? new Entry(file.length(), file.lastModified(), null) : new Entry(-1, -1, null);
+    }
+
+    private static String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import org.bukkit.boss.BossBar;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.HashMap;
+
+/**
+ * A running bossbar timer, driven by the {@link TimerScheduler}.
+ * <p>
+ * This is a BukkitRunnable so it can be returned from {@link GamePlayer#timer(int, String, org.bukkit.boss.BarColor, org.bukkit.boss.BarStyle, BukkitRunnable)} like before.
+ * Calling {@link #cancel()} stops the timer without running its task, and {@link #isCancelled()} and {@link #getTaskId()} answer for the timer, since it is never scheduled by itself.
+ * <p>
+ * Updates work on whole ticks, and go through a {@link BossBarUpdater} so only visible changes reach players.
+ * The title is compiled once into a {@link TitleTemplate}.
+ */
+public class TimerHandle extends BukkitRunnable {
+
+    /**
+     * How many updates pass between checks for players added straight to the bossbar.
+     */
+    private static final int RESYNC_PASSES = 20;
+
+    private final BossBar bossbar;
+    private final BossBarUpdater updater;
+    private final TitleTemplate template;
+    private final HashMap<String, String> replaceList;
+    private final Runnable tasktorun;
+    private long durationTicks;
+
+    private long deadline;
+    private long sequence;
+    private long pausedRemaining = -1;
+    private boolean cancelled = false;
+    private boolean completed = false;
+
+    private final StringBuilder titleBuilder = new StringBuilder();
+    private final BossBarViewers viewers;
+    private int passesSinceResync = 0;
+    private String lastTitle;
+
+    TimerHandle(BossBar bossbar, long durationTicks, TitleTemplate template, HashMap<String, String> replaceList, Runnable tasktorun) {
+        this.bossbar = bossbar;
+        this.updater = new BossBarUpdater(bossbar);
+        this.durationTicks = durationTicks;
+        this.template = template;
+        this.viewers = template.usesPlayersShown() ? BossBarViewers.track(bossbar, 0) : null;
+        this.replaceList = replaceList;
+        this.tasktorun = tasktorun;
+        this.pausedRemaining = durationTicks;
+    }
+
+    /**
+     * Starts the timer.
+     */
+    void start() {
+        pausedRemaining = -1;
+        deadline = TimerScheduler.getCurrentTick() + durationTicks;
+        TimerScheduler.add(this);
+    }
+
+    /**
+     * Redraws the timer. This is done automatically by the {@link TimerScheduler}.
+     */
+    @Override
+    public void run() {
+        update();
+    }
+
+    /**
+     * Stops the timer without running its task. The bossbar is hidden from everyone.
+     */
+    @Override
+    public synchronized void cancel() {
+        if (cancelled || completed) {
+            return;
+        }
+        cancelled = true;
+        bossbar.removeAll();
+        BossBarViewers.untrack(bossbar);
+        TimerScheduler.remove(this);
+    }
+
+    /**
+     * @return If the timer was cancelled. A timer that ran out is not cancelled, see {@link #isCompleted()}.
+     */
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Every timer is updated by the one {@link TimerScheduler} task, so a timer has no task of its own.
+     * @return -1, which Bukkit's scheduler ignores.
+     */
+    @Override
+    public synchronized int getTaskId() {
+        return -1;
+    }
+
+    /**
+     * @return If the timer ran out and its task was run.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Pauses the timer. The bossbar stays visible.
+     */
+    public void pause() {
+        if (isPaused() || cancelled || completed) {
+            return;
+        }
+        pausedRemaining = Math.max(0, deadline - TimerScheduler.getCurrentTick());
+        TimerScheduler.pause(this);
+    }
+
+    /**
+     * Resumes a paused timer.
+     */
+    public void resume() {
+        if (!isPaused() || cancelled || completed) {
+            return;
+        }
+        long remaining = pausedRemaining;
+        pausedRemaining = -1;
+        deadline = TimerScheduler.getCurrentTick() + remaining;
+        TimerScheduler.resume(this);
+    }
+
+    /**
+     * @return If the timer is paused.
+     */
+    public boolean isPaused() {
+        return pausedRemaining >= 0;
+    }
+
+    /**
+     * Adds time to the timer. The timer's total duration grows too, so the bossbar's progress stays sensible.
+     * @param seconds How many seconds to add. Use a negative number to take time away.
+     */
+    public void extend(double seconds) {
+        if (cancelled || completed) {
+            return;
+        }
+        long ticks = Math.round(seconds * 20);
+        durationTicks = Math.max(1, durationTicks + ticks);
+        if (isPaused()) {
+            pausedRemaining = Math.max(0, pausedRemaining + ticks);
+        } else {
+            TimerScheduler.reschedule(this, deadline + ticks);
+        }
+    }
+
+    /**
+     * @return How many ticks are left on the timer.
+     */
+    public long getRemainingTicks() {
+        return isPaused() ? pausedRemaining : Math.max(0, deadline - TimerScheduler.getCurrentTick());
+    }
+
+    /**
+     * @return How many ticks the timer lasts in total.
+     */
+    public long getDurationTicks() {
+        return durationTicks;
+    }
+
+    /**
+     * @return The updater sending this timer's changes, which also counts how many were sent.
+     */
+    public BossBarUpdater getUpdater() {
+        return updater;
+    }
+
+    /**
+     * @return The cached names of the players who can see this timer, or null if the title does not show them.
+     */
+    public BossBarViewers getViewers() {
+        return viewers;
+    }
+
+    /**
+     * @return The timer's bossbar.
+     */
+    public BossBar getBossbar() {
+        return bossbar;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void update() {
+        long remaining = getRemainingTicks();
+        double progress = Math.min(1, (double) remaining / durationTicks);
+        updater.setProgress(progress);
+
+        CharSequence playersShown = "";
+        if (viewers != null) {
+            if (++passesSinceResync >= RESYNC_PASSES) {
+                passesSinceResync = 0;
+                viewers.resync();
+            }
+            playersShown = viewers.getJoined();
+        }
+        if (template.render(titleBuilder, remaining, durationTicks - remaining, playersShown, replaceList)
+                && (lastTitle == null || !lastTitle.contentEquals(titleBuilder))) {
+            lastTitle = titleBuilder.toString();
+            updater.setTitle(lastTitle);
+        }
+    }
+
+    void complete() {
+        completed = true;
+        bossbar.removeAll();
+        BossBarViewers.untrack(bossbar);
+        tasktorun.run();
+    }
+}
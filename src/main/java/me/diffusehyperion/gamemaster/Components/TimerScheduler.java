@@ -0,0 +1,137 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Drives every bossbar timer from one repeating task, instead of one task per timer.
+ * <p>
+ * Every pass, all running timers are redrawn, then every timer whose deadline has passed is completed in deadline order.
+ * The task stops itself while there are no timers, and starts again when one is added.
+ * @see GamePlayer#timer(int, String, org.bukkit.boss.BarColor, org.bukkit.boss.BarStyle, org.bukkit.scheduler.BukkitRunnable)
+ */
+public class TimerScheduler {
+
+    /**
+     * How many ticks pass between updates.
+     */
+    public static final int PERIOD = 2;
+
+    private static final Metrics.Timer PASS_TIMER = Metrics.timer("timers.pass");
+    private static final Metrics.Timer TASK_TIMER = Metrics.timer("timers.task");
+    private static final Metrics.Counter COMPLETED = Metrics.counter("timers.completed");
+
+    private static final List<TimerHandle> active = new ArrayList<>();
+    private static final PriorityQueue<TimerHandle> deadlines = new PriorityQueue<>(
+            Comparator.comparingLong(TimerHandle::getDeadline).thenComparingLong(TimerHandle::getSequence));
+    private static BukkitTask task;
+    private static long currentTick = 0;
+    private static long sequence = 0;
+    private static long lastPassNanos = 0;
+
+    /**
+     * @return How many timers are running or paused.
+     */
+    public static int getActiveTimers() {
+        return active.size();
+    }
+
+    /**
+     * @return How long the last update pass took, in nanoseconds.
+     */
+    public static long getLastPassNanos() {
+        return lastPassNanos;
+    }
+
+    /**
+     * @return The scheduler's own tick counter, which timer deadlines are measured against.
+     */
+    public static long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Cancels every timer, without running their tasks.
+     */
+    public static void cancelAll() {
+        for (TimerHandle timer : new ArrayList<>(active)) {
+            timer.cancel();
+        }
+    }
+
+    static void add(TimerHandle timer) {
+        timer.setSequence(sequence++);
+        active.add(timer);
+        if (!timer.isPaused()) {
+            deadlines.add(timer);
+        }
+        timer.update();
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, TimerScheduler::pass, PERIOD, PERIOD);
+        }
+    }
+
+    static void remove(TimerHandle timer) {
+        active.remove(timer);
+        deadlines.remove(timer);
+        stopIfIdle();
+    }
+
+    static void pause(TimerHandle timer) {
+        deadlines.remove(timer);
+    }
+
+    static void resume(TimerHandle timer) {
+        timer.setDeadline(currentTick + timer.getRemainingTicks());
+        deadlines.add(timer);
+    }
+
+    static void reschedule(TimerHandle timer, long deadline) {
+        deadlines.remove(timer);
+        timer.setDeadline(deadline);
+        deadlines.add(timer);
+    }
+
+    private static void pass() {
+        long start = System.nanoTime();
+        currentTick += PERIOD;
+        for (int i = 0; i < active.size(); i++) {
+            TimerHandle timer = active.get(i);
+            if (!timer.isPaused() && timer.getDeadline() > currentTick) {
+                timer.update();
+            }
+        }
+        TimerHandle due;
+        while ((due = deadlines.peek()) != null && due.getDeadline() <= currentTick) {
+            deadlines.poll();
+            active.remove(due);
+            long taskStart = TASK_TIMER.start();
+            try {
+                due.complete();
+            } catch (RuntimeException e) {
+                Bukkit.getLogger().log(Level.SEVERE, "A timer's task threw an exception!", e);
+            }
+            TASK_TIMER.stop(taskStart);
+            COMPLETED.increment();
+        }
+        stopIfIdle();
+        lastPassNanos = System.nanoTime() - start;
+        PASS_TIMER.record(lastPassNanos);
+    }
+
+    private static void stopIfIdle() {
+        if (active.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
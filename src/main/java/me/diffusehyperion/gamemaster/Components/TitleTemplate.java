@@ -0,0 +1,339 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bossbar title that has been split up into literal text and placeholders ahead of time, so it can be redrawn without scanning the whole title again.
+ * <p>
+ * Supported placeholders are the ones in {@link GamePlayer.timerReplacement}, plus any custom keys given when compiling.
+ * The time placeholders can also take a format after a colon:
+ * <ul>
+ *     <li>%time_left% shows tenths of a second, such as 59.9.</li>
+ *     <li>%time_left:mm:ss% shows minutes and seconds, such as 00:59.</li>
+ *     <li>%time_left:hh:mm:ss% shows hours, minutes and seconds, such as 00:00:59.</li>
+ *     <li>%time_left:0%, %time_left:0.0% and %time_left:0.00% show seconds with that many decimals.</li>
+ * </ul>
+ * Anything else that looks like a placeholder is reported by {@link #getUnknownPlaceholders()} and left in the title as it is.
+ */
+public class TitleTemplate {
+
+    private enum SegmentType {
+        LITERAL,
+        TIME_LEFT,
+        TIME_ELAPSED,
+        PLAYERS_SHOWN,
+        CUSTOM
+    }
+
+    private enum TimeFormat {
+        TENTHS(2),
+        MINUTES_SECONDS(20),
+        HOURS_MINUTES_SECONDS(20),
+        SECONDS(20),
+        SECONDS_1(2),
+        SECONDS_2(1);
+
+        /**
+         * How many ticks pass before this format shows something different.
+         */
+        private final long resolution;
+
+        TimeFormat(long resolution) {
+            this.resolution = resolution;
+        }
+    }
+
+    private static final class Segment {
+        private final SegmentType type;
+        private final String text;
+        private final TimeFormat format;
+        private final int customIndex;
+
+        private Segment(SegmentType type, String text, TimeFormat format, int customIndex) {
+            this.type = type;
+            this.text = text;
+            this.format = format;
+            this.customIndex = customIndex;
+        }
+    }
+
+    private final String source;
+    private final List<Segment> segments;
+    private final String[] customKeys;
+    private final List<String> unknownPlaceholders;
+    private final long timeLeftResolution;
+    private final long timeElapsedResolution;
+    private final boolean usesPlayersShown;
+
+    private boolean rendered = false;
+    private long lastTimeLeft;
+    private long lastTimeElapsed;
+    private String lastPlayersShown;
+    private final String[] lastCustomValues;
+
+    private TitleTemplate(String source, List<Segment> segments, String[] customKeys, List<String> unknownPlaceholders) {
+        this.source = source;
+        this.segments = segments;
+        this.customKeys = customKeys;
+        this.unknownPlaceholders = Collections.unmodifiableList(unknownPlaceholders);
+        this.lastCustomValues = new String[customKeys.length];
+        long left = Long.MAX_VALUE;
+        long elapsed = Long.MAX_VALUE;
+        boolean players = false;
+        for (Segment segment : segments) {
+            if (segment.type == SegmentType.TIME_LEFT) {
+                left = Math.min(left, segment.format.resolution);
+            } else if (segment.type == SegmentType.TIME_ELAPSED) {
+                elapsed = Math.min(elapsed, segment.format.resolution);
+            } else if (segment.type == SegmentType.PLAYERS_SHOWN) {
+                players = true;
+            }
+        }
+        this.timeLeftResolution = left;
+        this.timeElapsedResolution = elapsed;
+        this.usesPlayersShown = players;
+    }
+
+    /**
+     * Compiles a title.
+     * @param title The title, with placeholders.
+     * @param customKeys Custom placeholders that may appear in the title. Can be empty.
+     * @return The compiled title.
+     */
+    public static TitleTemplate compile(String title, Collection<String> customKeys) {
+        List<String> keys = new ArrayList<>();
+        for (String key : customKeys) {
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        // longer keys first, so a key that starts with another key still matches
+        keys.sort((a, b) -> b.length() - a.length());
+
+        List<Segment> segments = new ArrayList<>();
+        List<String> usedKeys = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        scan:
+        while (i < title.length()) {
+            for (String key : keys) {
+                if (title.startsWith(key, i)) {
+                    flush(segments, literal);
+                    int index = usedKeys.indexOf(key);
+                    if (index < 0) {
+                        index = usedKeys.size();
+                        usedKeys.add(key);
+                    }
+                    segments.add(new Segment(SegmentType.CUSTOM, key, null, index));
+                    i += key.length();
+                    continue scan;
+                }
+            }
+            char c = title.charAt(i);
+            if (c == '%') {
+                int end = title.indexOf('%', i + 1);
+                if (end > i + 1) {
+                    String name = title.substring(i + 1, end);
+                    Segment segment = parsePlaceholder(name);
+                    if (segment != null) {
+                        flush(segments, literal);
+                        segments.add(segment);
+                        i = end + 1;
+                        continue;
+                    }
+                    if (looksLikePlaceholder(name)) {
+                        unknown.add(title.substring(i, end + 1));
+                    }
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        flush(segments, literal);
+        return new TitleTemplate(title, segments, usedKeys.toArray(new String[0]), unknown);
+    }
+
+    /**
+     * Compiles a title without custom placeholders.
+     * @param title The title, with placeholders.
+     * @return The compiled title.
+     */
+    public static TitleTemplate compile(String title) {
+        return compile(title, Collections.emptyList());
+    }
+
+    /**
+     * @return Everything in the title that looked like a placeholder, but was not one.
+     */
+    public List<String> getUnknownPlaceholders() {
+        return unknownPlaceholders;
+    }
+
+    /**
+     * @return If the title shows {@link GamePlayer.timerReplacement#PLAYERS_SHOWN}.
+     */
+    public boolean usesPlayersShown() {
+        return usesPlayersShown;
+    }
+
+    /**
+     * @return The title this was compiled from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Draws the title into a StringBuilder, but only if something in it changed since the last time it was drawn.
+     * @param out Where to draw the title. It is cleared first, and left alone if nothing changed.
+     * @param ticksLeft How many ticks are left on the timer.
+     * @param ticksElapsed How many ticks have passed on the timer.
+     * @param playersShown The names of the players who can see the timer. Ignored if the title does not show them.
+     * @param customValues The values of the custom placeholders. Can be null if there are none.
+     * @return If the title was drawn.
+     */
+    public boolean render(StringBuilder out, long ticksLeft, long ticksElapsed, CharSequence playersShown, Map<String, String> customValues) {
+        long left = timeLeftResolution == Long.MAX_VALUE ? 0 : ticksLeft / timeLeftResolution;
+        long elapsed = timeElapsedResolution == Long.MAX_VALUE ? 0 : ticksElapsed / timeElapsedResolution;
+        boolean changed = !rendered || left != lastTimeLeft || elapsed != lastTimeElapsed;
+        if (usesPlayersShown && (lastPlayersShown == null || !lastPlayersShown.contentEquals(playersShown))) {
+            lastPlayersShown = playersShown.toString();
+            changed = true;
+        }
+        for (int i = 0; i < customKeys.length; i++) {
+            String value = customValues == null ? null : customValues.get(customKeys[i]);
+            if (!Objects.equals(value, lastCustomValues[i])) {
+                lastCustomValues[i] = value;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        rendered = true;
+        lastTimeLeft = left;
+        lastTimeElapsed = elapsed;
+
+        out.setLength(0);
+        for (Segment segment : segments) {
+            switch (segment.type) {
+                case LITERAL:
+                    out.append(segment.text);
+                    break;
+                case TIME_LEFT:
+                    appendTime(out, ticksLeft, segment.format);
+                    break;
+                case TIME_ELAPSED:
+                    appendTime(out, ticksElapsed, segment.format);
+                    break;
+                case PLAYERS_SHOWN:
+                    out.append(lastPlayersShown);
+                    break;
+                case CUSTOM:
+                    String value = lastCustomValues[segment.customIndex];
+                    out.append(value == null ? segment.text : value);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a time in ticks using a format.
+     */
+    private static void appendTime(StringBuilder out, long ticks, TimeFormat format) {
+        long seconds = ticks / 20;
+        switch (format) {
+            case TENTHS:
+                out.append(ticks / 20).append('.').append(ticks % 20 / 2);
+                break;
+            case MINUTES_SECONDS:
+                appendTwoDigits(out, seconds / 60).append(':');
+                appendTwoDigits(out, seconds % 60);
+                break;
+            case HOURS_MINUTES_SECONDS:
+                appendTwoDigits(out, seconds / 3600).append(':');
+                appendTwoDigits(out, seconds / 60 % 60).append(':');
+                appendTwoDigits(out, seconds % 60);
+                break;
+            case SECONDS:
+                out.append(seconds);
+                break;
+            case SECONDS_1:
+                out.append(seconds).append('.').append(ticks % 20 / 2);
+                break;
+            case SECONDS_2:
+                out.append(seconds).append('.');
+                appendTwoDigits(out, ticks % 20 * 5);
+                break;
+        }
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder out, long value) {
+        if (value < 10) {
+            out.append('0');
+        }
+        return out.append(value);
+    }
+
+    private static Segment parsePlaceholder(String name) {
+        int colon = name.indexOf(':');
+        String base = colon < 0 ? name : name.substring(0, colon);
+        String format = colon < 0 ? null : name.substring(colon + 1);
+        SegmentType type;
+        if (("%" + base + "%").equals(GamePlayer.timerReplacement.TIME_LEFT.toString())) {
+            type = SegmentType.TIME_LEFT;
+        } else if (("%" + base + "%").equals(GamePlayer.timerReplacement.TIME_ELAPSED.toString())) {
+            type = SegmentType.TIME_ELAPSED;
+        } else if (("%" + base + "%").equals(GamePlayer.timerReplacement.PLAYERS_SHOWN.toString()) && format == null) {
+            return new Segment(SegmentType.PLAYERS_SHOWN, null, null, -1);
+        } else {
+            return null;
+        }
+        TimeFormat timeFormat = parseFormat(format);
+        return timeFormat == null ? null : new Segment(type, null, timeFormat, -1);
+    }
+
+    private static TimeFormat parseFormat(String format) {
+        if (format == null) {
+            return TimeFormat.TENTHS;
+        }
+        switch (format) {
+            case "mm:ss":
+                return TimeFormat.MINUTES_SECONDS;
+            case "hh:mm:ss":
+                return TimeFormat.HOURS_MINUTES_SECONDS;
+            case "0":
+                return TimeFormat.SECONDS;
+            case "0.0":
+                return TimeFormat.SECONDS_1;
+            case "0.00":
+                return TimeFormat.SECONDS_2;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean looksLikePlaceholder(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != ':' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void flush(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Segment(SegmentType.LITERAL, literal.toString(), null, -1));
+            literal.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+import me.diffusehyperion.gamemaster.Utility.RetryPolicy;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Deletes worlds without blocking the server.
+ * <p>
+ * Deleting happens in two steps. First, the world is unloaded on the main thread and its folder is renamed to a tombstone name, which frees up the world's name straight away.
+ * Then, the tombstone is deleted in the background by {@link IOExecutor}.
+ * <p>
+ * Tombstones left behind by a crash are cleaned up by {@link #sweepTombstones()} on the next boot.
+ * <p>
+ * If a world's folder is a link, such as to an {@link EphemeralWorlds} scratch directory, the files it links to are deleted too.
+ * The size of every deleted world is recorded, separately for ephemeral worlds, to compare how much matches write.
+ */
+public class WorldDeletion {
+
+    /**
+     * Every tombstone folder starts with this.
+     */
+    public static final String TOMBSTONE_PREFIX = ".gamemaster-deleted-";
+
+    private static final Metrics.Histogram DELETED_BYTES = Metrics.histogram("world.delete.bytes");
+    private static final Metrics.Histogram DELETED_EPHEMERAL_BYTES = Metrics.histogram("world.delete.bytes.ephemeral");
+
+    /**
+     * How a deletion ended.
+     */
+    public enum Status {
+        /**
+         * The world was deleted.
+         */
+        DELETED,
+        /**
+         * There was no world folder to delete.
+         */
+        NOT_FOUND,
+        /**
+         * The world could not be unloaded, so nothing was deleted.
+         */
+        UNLOAD_FAILED,
+        /**
+         * The world folder could not be renamed or deleted.
+         */
+        FAILED
+    }
+
+    /**
+     * The result of a deletion.
+     */
+    public static class Result {
+        private final String worldName;
+        private final Status status;
+        private final int attempts;
+        private final long millis;
+        private final IOException error;
+
+        Result(String worldName, Status status, int attempts, long millis, IOException error) {
+            this.worldName = worldName;
+            this.status = status;
+            this.attempts = attempts;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return If the world is gone, or was never there.
+         */
+        public boolean isSuccess() {
+            return status == Status.DELETED || status == Status.NOT_FOUND;
+        }
+
+        /**
+         * @return How many tries the slowest step took.
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return How long the whole deletion took, in milliseconds.
+         */
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return The last error, if the deletion failed because of one.
+         */
+        public IOException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Deleting " + worldName + ": " + status + " after " + attempts + " attempt(s) in " + millis + "ms";
+        }
+    }
+
+    /**
+     * Deletes a world in the background.
+     * <p>
+     * The world is unloaded without saving. The returned future completes on a background thread, not the main thread!
+     * @param worldName The name of the deleted world.
+     * @param policy How often to retry unloading, renaming and deleting.
+     * @return A future with the result of the deletion. It never completes exceptionally.
+     */
+    public static CompletableFuture<Result> deleteWorldAsync(String worldName, RetryPolicy policy) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        unload(worldName, policy, 1, start, future);
+        return future;
+    }
+
+    /**
+     * Deletes a world in the background, using {@link RetryPolicy#DEFAULT}.
+     * @see #deleteWorldAsync(String, RetryPolicy)
+     * @param worldName The name of the deleted world.
+     * @return A future with the result of the deletion. It never completes exceptionally.
+     */
+    public static CompletableFuture<Result> deleteWorldAsync(String worldName) {
+        return deleteWorldAsync(worldName, RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * Unloads a world and renames its folder to a tombstone straight away, then deletes the tombstone in the background.
+     * <p>
+     * Unloading is only tried once. It fails because of players in the world, it being the default world or a cancelled event, and none of those change while the current thread waits.
+     * Use {@link #deleteWorldAsync(String, RetryPolicy)} to retry unloading without blocking.
+     * @param worldName The name of the deleted world.
+     * @param policy How often to retry renaming and deleting.
+     * @return The result of unloading and renaming. If it succeeded, the world's name is free to use again.
+     */
+    public static Result deleteWorld(String worldName, RetryPolicy policy) {
+        long start = System.currentTimeMillis();
+        int attempt = 1;
+        if (!tryUnload(worldName)) {
+            return new Result(worldName, Status.UNLOAD_FAILED, attempt, System.currentTimeMillis() - start, null);
+        }
+        File folder = new File(Bukkit.getWorldContainer(), worldName);
+        if (!folder.exists()) {
+            return new Result(worldName, Status.NOT_FOUND, attempt, System.currentTimeMillis() - start, null);
+        }
+        Path files = filesOf(folder);
+        try {
+            File tombstone = tombstone(folder, policy);
+            IOExecutor.get().execute(() -> deleteTombstone(worldName, tombstone, files, policy, start));
+            return new Result(worldName, Status.DELETED, attempt, System.currentTimeMillis() - start, null);
+        } catch (IOException e) {
+            return new Result(worldName, Status.FAILED, policy.getMaxAttempts(), System.currentTimeMillis() - start, e);
+        }
+    }
+
+    /**
+     * Renames a folder to a tombstone in the same directory, so that the original name is free.
+     * @param folder The folder to rename.
+     * @param policy How often to retry renaming.
+     * @return The tombstone folder.
+     */
+    public static File tombstone(File folder, RetryPolicy policy) throws IOException {
+        File tombstone = new File(folder.getParentFile(), TOMBSTONE_PREFIX + folder.getName() + "-" + System.nanoTime());
+        IOException last = null;
+        for (int attempt = 1; attempt <= policy.getMaxAttempts(); attempt++) {
+            try {
+                try {
+                    Files.move(folder.toPath(), tombstone.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(folder.toPath(), tombstone.toPath());
+                }
+                return tombstone;
+            } catch (IOException | UncheckedIOException e) {
+                last = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+                if (attempt == policy.getMaxAttempts() || !policy.sleep(attempt)) {
+                    break;
+                }
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * Deletes every tombstone left in the world container, in the background.
+     * <p>
+     * GameMaster runs this when it loads, to clean up after deletions that were interrupted by a crash or shutdown.
+     * @return How many tombstones were found.
+     */
+    public static int sweepTombstones() {
+        File[] files = Bukkit.getWorldContainer().listFiles((dir, name) -> name.startsWith(TOMBSTONE_PREFIX));
+        if (files == null) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        for (File file : files) {
+            IOExecutor.get().execute(() -> deleteTombstone(file.getName(), file, null, RetryPolicy.DEFAULT, start));
+        }
+        return files.length;
+    }
+
+    private static void unload(String worldName, RetryPolicy policy, int attempt, long start, CompletableFuture<Result> future) {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, () -> unload(worldName, policy, attempt, start, future));
+            return;
+        }
+        if (!tryUnload(worldName)) {
+            if (attempt >= policy.getMaxAttempts() || !plugin.isEnabled()) {
+                future.complete(new Result(worldName, Status.UNLOAD_FAILED, attempt, System.currentTimeMillis() - start, null));
+            } else {
+                long delayTicks = Math.max(1, policy.getDelayMillis(attempt) / 50);
+                Bukkit.getScheduler().runTaskLater(plugin, () -> unload(worldName, policy, attempt + 1, start, future), delayTicks);
+            }
+            return;
+        }
+        File folder = new File(Bukkit.getWorldContainer(), worldName);
+        IOExecutor.get().execute(() -> {
+            if (!folder.exists()) {
+                future.complete(new Result(worldName, Status.NOT_FOUND, attempt, System.currentTimeMillis() - start, null));
+                return;
+            }
+            Path files = filesOf(folder);
+            File tombstone;
+            try {
+                tombstone = tombstone(folder, policy);
+            } catch (IOException e) {
+                future.complete(new Result(worldName, Status.FAILED, policy.getMaxAttempts(), System.currentTimeMillis() - start, e));
+                return;
+            }
+            future.complete(deleteTombstone(worldName, tombstone, files, policy, start));
+        });
+    }
+
+    private static boolean tryUnload(String worldName) {
+        return Bukkit.getWorld(worldName) == null || Bukkit.unloadWorld(worldName, false);
+    }
+
+    // where a world's files really are, following a link to a scratch directory
+    private static Path filesOf(File folder) {
+        Path path = folder.toPath();
+        if (Files.isSymbolicLink(path)) {
+            try {
+                return path.resolveSibling(Files.readSymbolicLink(path)).toAbsolutePath();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return path.toAbsolutePath();
+    }
+
+    private static Result deleteTombstone(String worldName, File tombstone, Path registered, RetryPolicy policy, long start) {
+        Path link = tombstone.toPath();
+        Path files = Files.isSymbolicLink(link) ? filesOf(tombstone) : link;
+        boolean ephemeral = registered != null && EphemeralWorlds.isRegistered(registered);
+        long bytes = sizeOf(files);
+        IOException last = null;
+        for (int attempt = 1; attempt <= policy.getMaxAttempts(); attempt++) {
+            try {
+                if (files != null && files != link) {
+                    FileUtils.deleteDirectory(files.toFile());
+                }
+                FileUtils.deleteDirectory(tombstone);
+                Files.deleteIfExists(link);
+                (ephemeral ? DELETED_EPHEMERAL_BYTES : DELETED_BYTES).record(bytes);
+                if (registered != null) {
+                    EphemeralWorlds.forget(registered);
+                }
+                return new Result(worldName, Status.DELETED, attempt, System.currentTimeMillis() - start, null);
+            } catch (IOException | UncheckedIOException e) {
+                last = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+                if (attempt == policy.getMaxAttempts() || !policy.sleep(attempt)) {
+                    break;
+                }
+            }
+        }
+        Bukkit.getLogger().log(Level.WARNING, "Could not delete " + tombstone.getName() + ", it will be deleted on the next boot.", last);
+        return new Result(worldName, Status.FAILED, policy.getMaxAttempts(), System.currentTimeMillis() - start, last);
+    }
+
+    // only measured for metrics, so a folder changing while it is walked records 0 instead of stopping the deletion
+    private static long sizeOf(Path files) {
+        if (!Metrics.isEnabled() || files == null || !Files.isDirectory(files)) {
+            return 0;
+        }
+        try {
+            return FileUtils.sizeOfDirectory(files.toFile());
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
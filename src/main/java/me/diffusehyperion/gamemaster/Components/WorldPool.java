@@ -0,0 +1,268 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.TickMonitor;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.WorldType;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Keeps a number of pre-generated worlds ready, so that a new round does not have to wait for world generation.
+ * <p>
+ * Worlds are generated one at a time in the background while the server is idle. {@link #acquire()} hands out a warm world instantly,
+ * and {@link #release(World)} deletes a used world so that a fresh one can take its place.
+ * <p>
+ * Pooled worlds are named prefix-number. Any worlds left with that name from an earlier run are deleted when the pool starts.
+ */
+public class WorldPool {
+
+    /**
+     * How the seeds of pooled worlds are picked.
+     */
+    public enum SeedPolicy {
+        /**
+         * Every world gets a random seed.
+         */
+        RANDOM,
+        /**
+         * Every world uses the same seed.
+         */
+        FIXED,
+        /**
+         * The first world uses the seed, and every world after it adds 1.
+         */
+        INCREMENTING
+    }
+
+    private final String prefix;
+    private final int size;
+    private final World.Environment env;
+    private final WorldType type;
+    private final SeedPolicy seedPolicy;
+    private final long seed;
+    private final long refillIntervalTicks;
+    private final long diskBudgetBytes;
+    private final double minimumTPS;
+
+    private final Random random = new Random();
+    private final Deque<World> warm = new ArrayDeque<>();
+    private final Map<String, Long> worldSizes = new HashMap<>();
+    private final AtomicLong diskUsage = new AtomicLong();
+    private BukkitTask refillTask;
+    private int counter = 0;
+    private long generated = 0;
+    private long lastGenerationMillis = -1;
+
+    /**
+     * Creates a world pool. Use {@link #start()} to start filling it.
+     * @param prefix The start of the name of every pooled world.
+     * @param size How many warm worlds to keep ready.
+     * @param env The environment of pooled worlds.
+     * @param type The type of pooled worlds.
+     * @param seedPolicy How seeds are picked. See {@link SeedPolicy}.
+     * @param seed The seed used by {@link SeedPolicy#FIXED} and {@link SeedPolicy#INCREMENTING}. Ignored for {@link SeedPolicy#RANDOM}.
+     * @param refillIntervalTicks How many ticks to wait between generating worlds.
+     * @param diskBudgetBytes No more worlds will be generated while pooled and acquired worlds use more than this many bytes. Set to 0 for no limit.
+     * @param minimumTPS Worlds are only generated while the server is running at least this many ticks per second.
+     */
+    public WorldPool(String prefix, int size, World.Environment env, WorldType type, SeedPolicy seedPolicy, long seed,
+                     long refillIntervalTicks, long diskBudgetBytes, double minimumTPS) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool must hold at least 1 world!");
+        }
+        this.prefix = prefix;
+        this.size = size;
+        this.env = env;
+        this.type = type;
+        this.seedPolicy = seedPolicy;
+        this.seed = seed;
+        this.refillIntervalTicks = Math.max(1, refillIntervalTicks);
+        this.diskBudgetBytes = diskBudgetBytes;
+        this.minimumTPS = minimumTPS;
+    }
+
+    /**
+     * Creates a pool of normal overworlds with random seeds, which generates a world every 10 seconds while the server runs at 19 TPS or higher.
+     * @see #WorldPool(String, int, World.Environment, WorldType, SeedPolicy, long, long, long, double)
+     * @param prefix The start of the name of every pooled world.
+     * @param size How many warm worlds to keep ready.
+     */
+    public WorldPool(String prefix, int size) {
+        this(prefix, size, World.Environment.NORMAL, WorldType.NORMAL, SeedPolicy.RANDOM, 0, 200, 0, 19);
+    }
+
+    /**
+     * Starts filling the pool. Leftover worlds from an earlier run are deleted first.
+     */
+    public void start() {
+        if (refillTask != null) {
+            return;
+        }
+        // only prefix-number, so worlds such as prefix-template are left alone
+        Pattern pooled = Pattern.compile(Pattern.quote(prefix) + "-\\d+");
+        File[] leftovers = Bukkit.getWorldContainer().listFiles((dir, name) -> pooled.matcher(name).matches());
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                WorldDeletion.deleteWorldAsync(leftover.getName());
+            }
+        }
+        refillTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refill, refillIntervalTicks, refillIntervalTicks);
+    }
+
+    /**
+     * Stops filling the pool, and deletes every warm world. Worlds that were acquired are left alone.
+     */
+    public void stop() {
+        if (refillTask != null) {
+            refillTask.cancel();
+            refillTask = null;
+        }
+        while (!warm.isEmpty()) {
+            release(warm.poll());
+        }
+    }
+
+    /**
+     * Get a warm world from the pool.
+     * <p>
+     * If the pool is empty, a world is generated on the spot instead.
+     * @return A ready world, which now belongs to the caller until it is released.
+     */
+    public World acquire() {
+        World world = warm.poll();
+        if (world == null) {
+            Bukkit.getLogger().warning("World pool " + prefix + " is empty, generating a world now.");
+            world = generate();
+        }
+        return world;
+    }
+
+    /**
+     * Get a warm world from the pool, without ever generating one.
+     * @return A ready world, or null if the pool is empty.
+     */
+    public World tryAcquire() {
+        return warm.poll();
+    }
+
+    /**
+     * Give a world back to the pool. It will be deleted in the background, and replaced with a fresh world when the server is idle.
+     * @param world The world to release. It should have come from this pool.
+     */
+    public void release(World world) {
+        String name = world.getName();
+        WorldDeletion.deleteWorldAsync(name).thenAccept(result -> {
+            if (result.isSuccess()) {
+                Long bytes;
+                synchronized (worldSizes) {
+                    bytes = worldSizes.remove(name);
+                }
+                if (bytes != null) {
+                    diskUsage.addAndGet(-bytes);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return How many warm worlds are ready right now.
+     */
+    public int getAvailable() {
+        return warm.size();
+    }
+
+    /**
+     * @return How many warm worlds the pool tries to keep ready.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return How long the last world took to generate, in milliseconds, or -1 if none have been generated yet.
+     */
+    public long getLastGenerationMillis() {
+        return lastGenerationMillis;
+    }
+
+    /**
+     * @return How many worlds this pool has generated in total.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * The disk usage is measured in the background after each world is generated, so it is only an estimate.
+     * @return How many bytes the pooled and acquired worlds take up on disk.
+     */
+    public long getDiskUsage() {
+        return diskUsage.get();
+    }
+
+    private void refill() {
+        if (warm.size() >= size) {
+            return;
+        }
+        if (diskBudgetBytes > 0 && diskUsage.get() >= diskBudgetBytes) {
+            return;
+        }
+        if (!TickMonitor.isHealthy(minimumTPS)) {
+            return;
+        }
+        warm.add(generate());
+    }
+
+    private World generate() {
+        String name;
+        do {
+            name = prefix + "-" + counter++;
+        } while (Bukkit.getWorld(name) != null || new File(Bukkit.getWorldContainer(), name).exists());
+
+        long start = System.currentTimeMillis();
+        World world = GameWorld.createWorld(name, nextSeed(), env, type);
+        lastGenerationMillis = System.currentTimeMillis() - start;
+        generated++;
+
+        File folder = world.getWorldFolder();
+        String worldName = name;
+        IOExecutor.get().execute(() -> {
+            long bytes;
+            try {
+                bytes = FileUtils.sizeOfDirectory(folder);
+            } catch (RuntimeException e) {
+                // the world was released before it could be measured
+                return;
+            }
+            synchronized (worldSizes) {
+                worldSizes.put(worldName, bytes);
+            }
+            diskUsage.addAndGet(bytes);
+        });
+        return world;
+    }
+
+    private long nextSeed() {
+        switch (seedPolicy) {
+            case FIXED:
+                return seed;
+            case INCREMENTING:
+                return seed + generated;
+            default:
+                return random.nextLong();
+        }
+    }
+}
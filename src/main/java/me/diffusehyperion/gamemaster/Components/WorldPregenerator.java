@@ -0,0 +1,181 @@
+package me.diffusehyperion.gamemaster.Components;
+
+import me.diffusehyperion.gamemaster.Utility.BudgetedTask;
+import me.diffusehyperion.gamemaster.Utility.TickMonitor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldBorder;
+
+/**
+ * Generates every chunk inside a world's border ahead of time, so players do not have to wait for terrain to generate mid-match.
+ * <p>
+ * Chunks are generated in a spiral outwards from the spawn, a few every tick. Ticks are skipped while the server is running slower than the minimum TPS.
+ * @see GameWorld#pregenerateWorld(World, int, double, boolean)
+ */
+public class WorldPregenerator extends BudgetedTask<WorldPregenerator> {
+
+    private final World world;
+    private final boolean unloadAfter;
+    private final double minimumTPS;
+
+    private final int minChunkX, maxChunkX, minChunkZ, maxChunkZ;
+    private final int centerChunkX, centerChunkZ;
+    private final long total;
+    private final int radius;
+
+    // spiral cursor, relative to the center chunk
+    private int ring = 0;
+    private int leg = 0;
+    private int legStep = 0;
+    private int dx = 0, dz = 0;
+
+    private long done = 0;
+    private long generated = 0;
+    private long startMillis = -1;
+
+    /**
+     * Creates a pre-generator for everything inside the world's current border. Use {@link #start()} to run it.
+     * @param world The world to pre-generate.
+     * @param chunksPerTick The most chunks to generate every tick.
+     * @param minimumTPS Ticks are skipped while the server runs slower than this.
+     * @param unloadAfter If chunks should be unloaded again after generating, to save memory.
+     */
+    public WorldPregenerator(World world, int chunksPerTick, double minimumTPS, boolean unloadAfter) {
+        super(DEFAULT_BUDGET_MILLIS * 4);
+        setMaxStepsPerTick(chunksPerTick);
+        this.world = world;
+        this.unloadAfter = unloadAfter;
+        this.minimumTPS = minimumTPS;
+
+        WorldBorder border = world.getWorldBorder();
+        Location center = border.getCenter();
+        double half = border.getSize() / 2;
+        minChunkX = (int) Math.floor(center.getX() - half) >> 4;
+        maxChunkX = (int) Math.floor(center.getX() + half) >> 4;
+        minChunkZ = (int) Math.floor(center.getZ() - half) >> 4;
+        maxChunkZ = (int) Math.floor(center.getZ() + half) >> 4;
+        total = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+        Location spawn = world.getSpawnLocation();
+        centerChunkX = Math.max(minChunkX, Math.min(maxChunkX, spawn.getBlockX() >> 4));
+        centerChunkZ = Math.max(minChunkZ, Math.min(maxChunkZ, spawn.getBlockZ() >> 4));
+        radius = Math.max(Math.max(centerChunkX - minChunkX, maxChunkX - centerChunkX), Math.max(centerChunkZ - minChunkZ, maxChunkZ - centerChunkZ));
+    }
+
+    @Override
+    protected boolean shouldRun() {
+        if (startMillis < 0) {
+            startMillis = System.currentTimeMillis();
+        }
+        return TickMonitor.isHealthy(minimumTPS);
+    }
+
+    @Override
+    protected boolean step() {
+        // chunks in the spiral's square but outside the border are skipped without counting as a step
+        while (ring <= radius) {
+            int chunkX = centerChunkX + dx;
+            int chunkZ = centerChunkZ + dz;
+            nextInSpiral();
+            if (chunkX < minChunkX || chunkX > maxChunkX || chunkZ < minChunkZ || chunkZ > maxChunkZ) {
+                continue;
+            }
+            generate(chunkX, chunkZ);
+            done++;
+            return done < total;
+        }
+        return false;
+    }
+
+    @Override
+    protected WorldPregenerator result() {
+        return this;
+    }
+
+    @Override
+    public double getProgress() {
+        return total == 0 ? 1 : (double) done / total;
+    }
+
+    /**
+     * @return How many chunks inside the border have been handled, whether they needed generating or not.
+     */
+    public long getChunksDone() {
+        return done;
+    }
+
+    /**
+     * @return How many chunks are inside the border.
+     */
+    public long getChunksTotal() {
+        return total;
+    }
+
+    /**
+     * @return How many chunks actually had to be generated.
+     */
+    public long getChunksGenerated() {
+        return generated;
+    }
+
+    /**
+     * @return Roughly how many seconds are left, based on the speed so far, or -1 if it cannot be guessed yet.
+     */
+    public long getEtaSeconds() {
+        if (done == 0 || startMillis < 0) {
+            return -1;
+        }
+        long elapsed = System.currentTimeMillis() - startMillis;
+        return (long) (elapsed / (double) done * (total - done)) / 1000;
+    }
+
+    private void generate(int chunkX, int chunkZ) {
+        boolean wasLoaded = world.isChunkLoaded(chunkX, chunkZ);
+        if (world.isChunkGenerated(chunkX, chunkZ)) {
+            return;
+        }
+        world.loadChunk(chunkX, chunkZ, true);
+        generated++;
+        if (unloadAfter && !wasLoaded) {
+            world.unloadChunkRequest(chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Moves the cursor one chunk along a square spiral. Ring n is the square of chunks n away from the center.
+     */
+    private void nextInSpiral() {
+        if (ring == 0) {
+            ring = 1;
+            dx = -1;
+            dz = -1;
+            leg = 0;
+            legStep = 0;
+            return;
+        }
+        // each ring has 4 legs of 2 * ring steps: east along the top, south, west, then north
+        switch (leg) {
+            case 0:
+                dx++;
+                break;
+            case 1:
+                dz++;
+                break;
+            case 2:
+                dx--;
+                break;
+            default:
+                dz--;
+                break;
+        }
+        if (++legStep == 2 * ring) {
+            legStep = 0;
+            if (++leg == 4) {
+                leg = 0;
+                ring++;
+                dx = -ring;
+                dz = -ring;
+            }
+        }
+    }
+}
@@ -11,11 +11,15 @@ public class FirstPlayerJoinEventHandler implements Listener {
 
     @EventHandler
     public void playerJoined(PlayerJoinEvent e) {
+        // this only needs to run once, so stop listening to joins afterwards
+        PlayerJoinEvent.getHandlerList().unregister(this);
         if (!playerJoined) {
             playerJoined = true;
             GameServer.playersJoinedBefore = true;
-            FirstPlayerJoinEvent event = new FirstPlayerJoinEvent(e.getPlayer(), e.getJoinMessage());
-            Bukkit.getPluginManager().callEvent(event);
+            if (FirstPlayerJoinEvent.getHandlerList().getRegisteredListeners().length > 0) {
+                FirstPlayerJoinEvent event = new FirstPlayerJoinEvent(e.getPlayer(), e.getJoinMessage());
+                Bukkit.getPluginManager().callEvent(event);
+            }
         }
     }
 }
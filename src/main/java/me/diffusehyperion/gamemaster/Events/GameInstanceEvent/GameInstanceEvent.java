@@ -0,0 +1,30 @@
+package me.diffusehyperion.gamemaster.Events.GameInstanceEvent;
+
+import me.diffusehyperion.gamemaster.Components.GameInstance;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Base for events fired by a {@link GameInstance}.
+ * <p>
+ * Instances only create and call these events when something is listening for them, so unused events cost nothing.
+ */
+public abstract class GameInstanceEvent extends Event {
+    private final GameInstance instance;
+
+    public GameInstanceEvent(GameInstance instance) {
+        this.instance = instance;
+    }
+
+    public GameInstance getInstance() {
+        return this.instance;
+    }
+
+    /**
+     * @param handlers The handlers of an event.
+     * @return If anything is listening for the event.
+     */
+    public static boolean hasListeners(HandlerList handlers) {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+}
@@ -0,0 +1,29 @@
+package me.diffusehyperion.gamemaster.Events.GameInstanceEvent;
+
+import me.diffusehyperion.gamemaster.Components.GameInstance;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Fired every second while an instance counts down with {@link GameInstance#countdown(int)}.
+ */
+public class InstanceCountdownTickEvent extends GameInstanceEvent {
+    private static final HandlerList handlers = new HandlerList();
+    private final int secondsLeft;
+
+    public InstanceCountdownTickEvent(GameInstance instance, int secondsLeft) {
+        super(instance);
+        this.secondsLeft = secondsLeft;
+    }
+
+    public int getSecondsLeft() {
+        return this.secondsLeft;
+    }
+
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -0,0 +1,30 @@
+package me.diffusehyperion.gamemaster.Events.GameInstanceEvent;
+
+import me.diffusehyperion.gamemaster.Components.GameInstance;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Fired when a player joins an instance that had no players.
+ */
+public class InstanceFirstJoinEvent extends GameInstanceEvent {
+    private static final HandlerList handlers = new HandlerList();
+    private final Player player;
+
+    public InstanceFirstJoinEvent(GameInstance instance, Player player) {
+        super(instance);
+        this.player = player;
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
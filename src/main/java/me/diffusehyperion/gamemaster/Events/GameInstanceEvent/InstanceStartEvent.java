@@ -0,0 +1,23 @@
+package me.diffusehyperion.gamemaster.Events.GameInstanceEvent;
+
+import me.diffusehyperion.gamemaster.Components.GameInstance;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Fired when an instance moves to {@link GameInstance.State#RUNNING}.
+ */
+public class InstanceStartEvent extends GameInstanceEvent {
+    private static final HandlerList handlers = new HandlerList();
+
+    public InstanceStartEvent(GameInstance instance) {
+        super(instance);
+    }
+
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -1,10 +1,30 @@
 package me.diffusehyperion.gamemaster;
 
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
+import me.diffusehyperion.gamemaster.Components.Audience;
+import me.diffusehyperion.gamemaster.Components.BlockJournal;
+import me.diffusehyperion.gamemaster.Components.BossBarUpdater;
+import me.diffusehyperion.gamemaster.Components.BossBarViewers;
+import me.diffusehyperion.gamemaster.Components.ConfigStore;
+import me.diffusehyperion.gamemaster.Components.EphemeralWorlds;
+import me.diffusehyperion.gamemaster.Components.GameInstance;
+import me.diffusehyperion.gamemaster.Components.RestartState;
+import me.diffusehyperion.gamemaster.Components.StartupFingerprint;
+import me.diffusehyperion.gamemaster.Components.TimerScheduler;
+import me.diffusehyperion.gamemaster.Components.WorldDeletion;
 import me.diffusehyperion.gamemaster.Events.FirstPlayerJoinEvent.FirstPlayerJoinEventHandler;
+import me.diffusehyperion.gamemaster.Utility.IOExecutor;
+import me.diffusehyperion.gamemaster.Utility.Metrics;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 public final class GameMaster extends JavaPlugin implements CommandExecutor {
 
@@ -13,17 +33,77 @@ public final class GameMaster extends JavaPlugin implements CommandExecutor {
     @Override
     public void onEnable() {
         Bukkit.getPluginManager().registerEvents(new FirstPlayerJoinEventHandler(), this);
+        Bukkit.getPluginManager().registerEvents(new BossBarViewers.QuitListener(), this);
+        Bukkit.getPluginManager().registerEvents(new Audience.MembershipListener(), this);
+        Bukkit.getPluginManager().registerEvents(new GameInstance.QuitListener(), this);
+        Bukkit.getPluginManager().registerEvents(new BlockJournal.RecordingListener(), this);
+        Bukkit.getPluginManager().registerEvents(new EphemeralWorlds.SaveListener(), this);
+        RestartState.logTimeToPlayable();
+        StartupFingerprint.logAndSaveAfterStartup();
+        Metrics.gauge("timers.active", TimerScheduler::getActiveTimers);
+        Metrics.gauge("timers.last-pass-nanos", TimerScheduler::getLastPassNanos);
+        Metrics.gauge("bossbar.sent", BossBarUpdater::getTotalSent);
+        Metrics.gauge("bossbar.suppressed", BossBarUpdater::getTotalSuppressed);
+        Metrics.gauge("instances", () -> GameInstance.getInstances().size());
+        Metrics.gauge("journal.bytes", BlockJournal::getTotalMemoryUsage);
+        Metrics.gauge("io.write-bytes", EphemeralWorlds::getProcessBytesWritten);
+        Metrics.startDumping(new File(getDataFolder(), "metrics.json"), 20L * 60);
         Bukkit.getLogger().info("GameMaster successfully enabled!");
     }
 
     @Override
     public void onLoad() {
         plugin = this;
+        RestartState previous = RestartState.load(getDataFolder());
+        boolean unchanged = StartupFingerprint.load(getDataFolder());
+        if (previous != null) {
+            getLogger().info("Restarted (" + previous.getReason() + ")" + (unchanged ? ", skipping " + previous.getChecks().size() + " startup check(s) that already passed." : ", but server files changed, doing every startup check."));
+        } else if (unchanged) {
+            getLogger().info("Server files unchanged since the last start, startup checks that passed then will be skipped.");
+        }
+        int ephemeral = EphemeralWorlds.cleanUp(getDataFolder());
+        if (ephemeral > 0) {
+            getLogger().info("Cleaning up " + ephemeral + " ephemeral world(s) left from last time.");
+        }
+        int tombstones = WorldDeletion.sweepTombstones();
+        if (tombstones > 0) {
+            getLogger().info("Cleaning up " + tombstones + " deleted world(s) left from last time.");
+        }
     }
 
     @Override
     public void onDisable() {
+        TimerScheduler.cancelAll();
+        Metrics.stopDumping();
+        ConfigStore.stopWatching();
+        // ephemeral worlds are unloaded now, so the server does not save them after this
+        EphemeralWorlds.deleteAll();
+        IOExecutor.shutdown(5000);
         getLogger().info("GameMaster successfully disabled!");
     }
 
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length != 1 || !args[0].equalsIgnoreCase("stats")) {
+            return false;
+        }
+        if (!sender.hasPermission("gamemaster.stats")) {
+            sender.sendMessage(ChatColor.RED + "You do not have permission to see GameMaster's stats.");
+            return true;
+        }
+        sender.sendMessage(ChatColor.GOLD + "GameMaster stats" + (Metrics.isEnabled() ? ":" : " (recording is off):"));
+        for (String line : Metrics.format()) {
+            sender.sendMessage(ChatColor.GRAY + line);
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 1 && "stats".startsWith(args[0].toLowerCase())) {
+            return Collections.singletonList("stats");
+        }
+        return Collections.emptyList();
+    }
+
 }
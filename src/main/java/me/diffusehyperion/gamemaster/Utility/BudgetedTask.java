@@ -0,0 +1,208 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * A main thread task that spreads its work over several ticks.
+ * <p>
+ * Every tick, {@link #step()} is called until either there is no work left, or the task has used up its time budget for that tick.
+ * @param <T> The type of the result the task completes with.
+ */
+public abstract class BudgetedTask<T> extends BukkitRunnable {
+
+    /**
+     * The default time budget per tick, in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+
+    /**
+     * How many steps are done between checks of the clock.
+     */
+    private static final int STEPS_PER_CHECK = 32;
+
+    private final long budgetNanos;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private Consumer<? super BudgetedTask<T>> progressListener;
+    private int maxStepsPerTick = Integer.MAX_VALUE;
+    private boolean started = false;
+    private boolean yielded = false;
+    private long ticksUsed = 0;
+
+    /**
+     * @param budgetMillis How many milliseconds the task is allowed to use per tick.
+     */
+    protected BudgetedTask(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("The time budget must be positive!");
+        }
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Does one unit of work.
+     * @return If there is still work left.
+     */
+    protected abstract boolean step();
+
+    /**
+     * @return The result to complete the future with, once all work is done.
+     */
+    protected abstract T result();
+
+    /**
+     * @return How far along the task is, from 0 to 1.
+     */
+    public abstract double getProgress();
+
+    /**
+     * Called at the start of every tick.
+     * @return False to skip this tick, for example while the server is lagging.
+     */
+    protected boolean shouldRun() {
+        return true;
+    }
+
+    /**
+     * Limit how many steps can be done every tick, on top of the time budget.
+     * @param maxStepsPerTick The most steps per tick.
+     */
+    protected void setMaxStepsPerTick(int maxStepsPerTick) {
+        if (maxStepsPerTick <= 0) {
+            throw new IllegalArgumentException("The step limit must be positive!");
+        }
+        this.maxStepsPerTick = maxStepsPerTick;
+    }
+
+    /**
+     * Stop stepping for the rest of this tick, for example while waiting on work running elsewhere.
+     * The task will carry on next tick.
+     */
+    protected void yieldTick() {
+        yielded = true;
+    }
+
+    @Override
+    public final void run() {
+        long deadline = System.nanoTime() + budgetNanos;
+        try {
+            if (!shouldRun()) {
+                return;
+            }
+            ticksUsed++;
+            yielded = false;
+            int steps = 0;
+            while (steps < maxStepsPerTick && !yielded) {
+                int batch = Math.min(STEPS_PER_CHECK, maxStepsPerTick - steps);
+                for (int i = 0; i < batch && !yielded; i++) {
+                    if (!step()) {
+                        finish();
+                        return;
+                    }
+                }
+                steps += batch;
+                if (System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            stop();
+            future.completeExceptionally(e);
+            return;
+        }
+        notifyProgress();
+    }
+
+    /**
+     * Starts running the task every tick.
+     * @return A future that completes when the task has finished.
+     */
+    public CompletableFuture<T> start() {
+        if (started) {
+            throw new IllegalStateException("This task has already been started!");
+        }
+        started = true;
+        runTaskTimer(plugin, 0, 1);
+        return future;
+    }
+
+    /**
+     * Runs the whole task right now on the current thread, ignoring the time budget.
+     * @return The result of the task.
+     */
+    public T runNow() {
+        if (started) {
+            throw new IllegalStateException("This task has already been started!");
+        }
+        started = true;
+        while (step()) {
+            yielded = false;
+        }
+        T result = result();
+        future.complete(result);
+        return result;
+    }
+
+    /**
+     * Stops the task. The future will be cancelled if it has not completed yet.
+     */
+    @Override
+    public synchronized void cancel() {
+        stop();
+        future.cancel(false);
+    }
+
+    /**
+     * Set a listener that will be called at the end of every tick the task runs for, and when it finishes.
+     * @param listener The listener.
+     */
+    public void setProgressListener(Consumer<? super BudgetedTask<T>> listener) {
+        this.progressListener = listener;
+    }
+
+    /**
+     * @return The future for the task's result.
+     */
+    public CompletableFuture<T> getFuture() {
+        return future;
+    }
+
+    /**
+     * @return How many ticks the task has run for.
+     */
+    public long getTicksUsed() {
+        return ticksUsed;
+    }
+
+    /**
+     * @return If the task has finished, failed or been cancelled.
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    private void finish() {
+        stop();
+        notifyProgress();
+        future.complete(result());
+    }
+
+    private void stop() {
+        try {
+            super.cancel();
+        } catch (IllegalStateException ignored) {
+            // never scheduled
+        }
+    }
+
+    private void notifyProgress() {
+        if (progressListener != null) {
+            progressListener.accept(this);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Edits values in a properties or YAML file line by line, so comments, ordering, spacing and line terminators are kept as they are.
+ * <p>
+ * Only the lines holding the changed values are touched. Keys that are not in the file yet are added, under their section for YAML.
+ * <p>
+ * This is not a full YAML parser. It understands nested sections and plain values, which is all server config files use for their settings.
+ */
+public class ConfigEditor {
+
+    /**
+     * How the file is laid out.
+     */
+    public enum Format {
+        PROPERTIES,
+        YAML
+    }
+
+    private final Format format;
+    private final List<String> lines = new ArrayList<>();
+    private final List<String> terminators = new ArrayList<>();
+    private final String lineTerminator;
+
+    private ConfigEditor(Format format, String content) {
+        this.format = format;
+        int start = 0;
+        while (start < content.length()) {
+            int newline = content.indexOf('\n', start);
+            if (newline < 0) {
+                lines.add(content.substring(start));
+                terminators.add("");
+                break;
+            }
+            int end = newline;
+            String terminator = "\n";
+            if (end > start && content.charAt(end - 1) == '\r') {
+                end--;
+                terminator = "\r\n";
+            }
+            lines.add(content.substring(start, end));
+            terminators.add(terminator);
+            start = newline + 1;
+        }
+        String found = "\n";
+        for (String terminator : terminators) {
+            if (!terminator.isEmpty()) {
+                found = terminator;
+                break;
+            }
+        }
+        this.lineTerminator = found;
+    }
+
+    /**
+     * @param format How the file is laid out.
+     * @param content The file's content.
+     * @return An editor for the content.
+     */
+    public static ConfigEditor of(Format format, String content) {
+        return new ConfigEditor(format, content);
+    }
+
+    /**
+     * @param content The content of a properties file.
+     * @return An editor for the content.
+     */
+    public static ConfigEditor properties(String content) {
+        return new ConfigEditor(Format.PROPERTIES, content);
+    }
+
+    /**
+     * @param content The content of a YAML file.
+     * @return An editor for the content.
+     */
+    public static ConfigEditor yaml(String content) {
+        return new ConfigEditor(Format.YAML, content);
+    }
+
+    /**
+     * Read a value as it is written in the file.
+     * @param key The key. YAML keys use dots to separate sections. (Example: settings.allow-end)
+     * @return The value, or null if the key is not in the file.
+     */
+    public String get(String key) {
+        int line = find(key);
+        if (line < 0) {
+            return null;
+        }
+        String text = lines.get(line);
+        if (format == Format.PROPERTIES) {
+            return text.substring(propertiesValueStart(text));
+        }
+        int colon = yamlColon(text, indentOf(text));
+        String value = text.substring(colon + 1);
+        return unquote(value.substring(0, yamlCommentStart(value)).trim());
+    }
+
+    /**
+     * Set a value, adding the key if it is not in the file.
+     * @param key The key. YAML keys use dots to separate sections. (Example: settings.allow-end)
+     * @param value The new value.
+     * @return If the file changed.
+     */
+    public boolean set(String key, String value) {
+        int line = find(key);
+        if (line < 0) {
+            add(key, value);
+            return true;
+        }
+        String text = lines.get(line);
+        String newText;
+        if (format == Format.PROPERTIES) {
+            newText = text.substring(0, propertiesValueStart(text)) + escapeProperty(value);
+        } else {
+            int indent = indentOf(text);
+            int colon = yamlColon(text, indent);
+            String rest = text.substring(colon + 1);
+            if (rest.trim().isEmpty() && hasChildren(line, indent)) {
+                throw new IllegalArgumentException(key + " is a section, not a value!");
+            }
+            newText = text.substring(0, colon + 1) + " " + quoteYaml(value) + rest.substring(yamlCommentStart(rest));
+        }
+        if (newText.equals(text)) {
+            return false;
+        }
+        lines.set(line, newText);
+        return true;
+    }
+
+    /**
+     * Set several values at once.
+     * @param values The keys and their new values.
+     * @return The keys whose lines changed.
+     */
+    public Set<String> setAll(Map<String, String> values) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (set(entry.getKey(), entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return The edited content.
+     */
+    public String getContent() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            builder.append(lines.get(i)).append(terminators.get(i));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getContent();
+    }
+
+    private int find(String key) {
+        return format == Format.PROPERTIES ? findProperty(key) : findYaml(key);
+    }
+
+    private int findProperty(String key) {
+        for (int i = 0; i < lines.size(); i++) {
+            String text = lines.get(i);
+            int start = indentOf(text);
+            if (start == text.length() || text.charAt(start) == '#' || text.charAt(start) == '!') {
+                continue;
+            }
+            int end = propertiesKeyEnd(text, start);
+            if (text.substring(start, end).equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int propertiesKeyEnd(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '=' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return Math.min(i, text.length());
+    }
+
+    private static int propertiesValueStart(String text) {
+        int i = propertiesKeyEnd(text, indentOf(text));
+        while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        if (i < text.length() && (text.charAt(i) == '=' || text.charAt(i) == ':')) {
+            i++;
+            while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private int findYaml(String key) {
+        List<Integer> indents = new ArrayList<>();
+        List<String> path = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String text = lines.get(i);
+            int indent = indentOf(text);
+            if (indent == text.length() || text.charAt(indent) == '#' || text.charAt(indent) == '-') {
+                continue;
+            }
+            int colon = yamlColon(text, indent);
+            if (colon < 0) {
+                continue;
+            }
+            while (!indents.isEmpty() && indents.get(indents.size() - 1) >= indent) {
+                indents.remove(indents.size() - 1);
+                path.remove(path.size() - 1);
+            }
+            indents.add(indent);
+            path.add(unquote(text.substring(indent, colon).trim()));
+            if (String.join(".", path).equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the colon ending a YAML key, which has to be followed by a space or the end of the line.
+     */
+    private static int yamlColon(String text, int start) {
+        char quote = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '\'' || c == '"') && i == start) {
+                quote = c;
+            } else if (c == '#' && i > start && text.charAt(i - 1) == ' ') {
+                return -1;
+            } else if (c == ':' && (i + 1 == text.length() || text.charAt(i + 1) == ' ' || text.charAt(i + 1) == '\t')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds where a trailing comment starts in a YAML value, or the end of the value if there is none.
+     */
+    private static int yamlCommentStart(String value) {
+        char quote = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '\'' || c == '"') && value.substring(0, i).trim().isEmpty()) {
+                quote = c;
+            } else if (c == '#' && (i == 0 || value.charAt(i - 1) == ' ' || value.charAt(i - 1) == '\t')) {
+                int end = i;
+                while (end > 0 && (value.charAt(end - 1) == ' ' || value.charAt(end - 1) == '\t')) {
+                    end--;
+                }
+                return end;
+            }
+        }
+        return value.length();
+    }
+
+    private boolean hasChildren(int line, int indent) {
+        for (int i = line + 1; i < lines.size(); i++) {
+            String text = lines.get(i);
+            int childIndent = indentOf(text);
+            if (childIndent == text.length() || text.charAt(childIndent) == '#') {
+                continue;
+            }
+            return childIndent > indent || (childIndent == indent && text.charAt(childIndent) == '-');
+        }
+        return false;
+    }
+
+    private void add(String key, String value) {
+        if (format == Format.PROPERTIES) {
+            insert(lines.size(), key + "=" + escapeProperty(value));
+            return;
+        }
+        String[] parts = key.split("\\.");
+        int depth = parts.length - 1;
+        int section = -1;
+        while (depth > 0) {
+            section = findYaml(String.join(".", Arrays.copyOfRange(parts, 0, depth)));
+            if (section >= 0) {
+                break;
+            }
+            depth--;
+        }
+        int at = lines.size();
+        int indent = 0;
+        int step = 2;
+        if (section >= 0) {
+            int sectionIndent = indentOf(lines.get(section));
+            at = section + 1;
+            indent = -1;
+            for (int i = section + 1; i < lines.size(); i++) {
+                String text = lines.get(i);
+                int lineIndent = indentOf(text);
+                if (lineIndent == text.length() || text.charAt(lineIndent) == '#') {
+                    continue;
+                }
+                if (lineIndent <= sectionIndent) {
+                    break;
+                }
+                if (indent < 0) {
+                    indent = lineIndent;
+                }
+                at = i + 1;
+            }
+            if (indent < 0) {
+                indent = sectionIndent + step;
+            } else {
+                step = indent - sectionIndent;
+            }
+        }
+        for (int i = depth; i < parts.length; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < indent; j++) {
+                text.append(' ');
+            }
+            text.append(parts[i]).append(':');
+            if (i == parts.length - 1) {
+                text.append(' ').append(quoteYaml(value));
+            }
+            insert(at++, text.toString());
+            indent += step;
+        }
+    }
+
+    private void insert(int at, String text) {
+        // the line before needs a terminator if it was the last line of the file
+        if (at > 0 && terminators.get(at - 1).isEmpty()) {
+            terminators.set(at - 1, lineTerminator);
+        }
+        lines.add(at, text);
+        terminators.add(at, lineTerminator);
+    }
+
+    private static int indentOf(String text) {
+        int i = 0;
+        while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String escapeProperty(String value) {
+        return value.replace("\\", "\\\\");
+    }
+
+    private static String quoteYaml(String value) {
+        boolean plain = !value.isEmpty()
+                && !value.contains(": ")
+                && !value.contains(" #")
+                && !value.endsWith(":")
+                && "!&*{}[]|>'\"%@`#,?-".indexOf(value.charAt(0)) < 0
+                && value.trim().equals(value);
+        if (plain || (value.startsWith("-") && value.length() > 1 && value.charAt(1) != ' ' && value.indexOf(' ') < 0)) {
+            return value;
+        }
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            if (first == '\'' && last == '\'') {
+                return value.substring(1, value.length() - 1).replace("''", "'");
+            }
+            if (first == '"' && last == '"') {
+                return value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+}
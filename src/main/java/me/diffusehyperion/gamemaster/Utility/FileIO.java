@@ -0,0 +1,255 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads and writes text files with an explicit charset, keeping line terminators as they are, as well as binary files.
+ * <p>
+ * Writes go to a temporary file next to the target first, which is then moved over the target.
+ * A crash part way through a write leaves the old file in place instead of a half written one.
+ */
+public class FileIO {
+
+    /**
+     * The charset used when none is given.
+     */
+    public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String TEMP_SUFFIX = ".gamemaster-tmp";
+
+    /**
+     * Called for every line of a file by {@link #forEachLine(Path, Charset, LineConsumer)}.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**
+         * @param line The line, without its terminator.
+         * @param terminator The line's terminator: "\n", "\r\n", "\r", or "" for a last line without one.
+         */
+        void accept(String line, String terminator) throws IOException;
+    }
+
+    /**
+     * Reads a whole file in one go.
+     * @param path The file.
+     * @param charset The file's charset.
+     * @return The contents, with line terminators as they are in the file.
+     */
+    public static String read(Path path, Charset charset) throws IOException {
+        return new String(Files.readAllBytes(path), charset);
+    }
+
+    /**
+     * Reads a whole UTF-8 file in one go.
+     * @see #read(Path, Charset)
+     */
+    public static String read(Path path) throws IOException {
+        return read(path, DEFAULT_CHARSET);
+    }
+
+    /**
+     * Goes through a file one line at a time, without loading all of it.
+     * @param path The file.
+     * @param charset The file's charset.
+     * @param consumer Called for every line.
+     */
+    public static void forEachLine(Path path, Charset charset, LineConsumer consumer) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, charset)) {
+            char[] buffer = new char[BUFFER_SIZE];
+            StringBuilder line = new StringBuilder();
+            boolean pendingReturn = false;
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (pendingReturn) {
+                        pendingReturn = false;
+                        if (c == '\n') {
+                            consumer.accept(line.toString(), "\r\n");
+                            line.setLength(0);
+                            continue;
+                        }
+                        consumer.accept(line.toString(), "\r");
+                        line.setLength(0);
+                    }
+                    if (c == '\r') {
+                        pendingReturn = true;
+                    } else if (c == '\n') {
+                        consumer.accept(line.toString(), "\n");
+                        line.setLength(0);
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+            if (pendingReturn) {
+                consumer.accept(line.toString(), "\r");
+            } else if (line.length() > 0) {
+                consumer.accept(line.toString(), "");
+            }
+        }
+    }
+
+    /**
+     * Rewrites a file one line at a time, without loading all of it. Line terminators are kept.
+     * <p>
+     * The new contents are written to a temporary file, which only replaces the file once every line is done.
+     * @param path The file.
+     * @param charset The file's charset.
+     * @param transform Takes a line without its terminator, and returns the new line.
+     * @return If anything changed. The file is left alone if nothing did.
+     */
+    public static boolean transformLines(Path path, Charset charset, UnaryOperator<String> transform) throws IOException {
+        Path temp = tempFor(path);
+        boolean[] changed = {false};
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), charset), BUFFER_SIZE)) {
+                forEachLine(path, charset, (line, terminator) -> {
+                    String newLine = transform.apply(line);
+                    if (!newLine.equals(line)) {
+                        changed[0] = true;
+                    }
+                    writer.write(newLine);
+                    writer.write(terminator);
+                });
+                writer.flush();
+                channel.force(true);
+            }
+            if (changed[0]) {
+                replace(temp, path);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return changed[0];
+    }
+
+    /**
+     * Replaces a file's contents safely. See the class description.
+     * @param path The file.
+     * @param content The new contents.
+     * @param charset The charset to write in.
+     */
+    public static void write(Path path, String content, Charset charset) throws IOException {
+        writeBytes(path, charset.encode(content));
+    }
+
+    /**
+     * Replaces a UTF-8 file's contents safely.
+     * @see #write(Path, String, Charset)
+     */
+    public static void write(Path path, String content) throws IOException {
+        write(path, content, DEFAULT_CHARSET);
+    }
+
+    /**
+     * Replaces a binary file's contents safely. See the class description.
+     * @param path The file.
+     * @param content The new contents.
+     */
+    public static void write(Path path, byte[] content) throws IOException {
+        writeBytes(path, ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Opens a file for reading through a memory mapped buffer, so its contents are paged in by the OS as they are read instead of being copied onto the heap.
+     * <p>
+     * The mapping is released when the stream is garbage collected, not when it is closed. On Windows the file cannot be deleted or replaced until then.
+     * @param path The file. It must be smaller than 2GB.
+     * @return A stream over the file's contents.
+     */
+    public static InputStream openMapped(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map!");
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static void writeBytes(Path path, ByteBuffer bytes) throws IOException {
+        Path temp = tempFor(path);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            replace(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path tempFor(Path path) {
+        Path absolute = path.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + TEMP_SUFFIX);
+    }
+
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final MappedByteBuffer buffer;
+
+        private MappedInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
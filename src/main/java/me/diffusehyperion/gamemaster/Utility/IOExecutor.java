@@ -0,0 +1,59 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A shared executor for slow disk work, such as deleting or copying worlds.
+ * <p>
+ * It only runs a few tasks at once, so background disk work does not starve the server's own saving.
+ */
+public class IOExecutor {
+
+    /**
+     * The most tasks that will run at once.
+     */
+    public static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static ExecutorService executor;
+
+    /**
+     * Get the shared executor. It will be created again if it was shut down.
+     * @return The executor.
+     */
+    public static synchronized ExecutorService get() {
+        if (executor == null || executor.isShutdown()) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(r, "GameMaster-IO-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the executor, waiting a bit for running tasks to finish.
+     * @param timeoutMillis How long to wait.
+     */
+    public static synchronized void shutdown(long timeoutMillis) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+}
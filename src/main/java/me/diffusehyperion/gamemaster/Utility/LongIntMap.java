@@ -0,0 +1,170 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import java.util.Arrays;
+
+/**
+ * A map from longs to ints, without boxing either of them.
+ * <p>
+ * Keys and values are kept in two flat arrays with open addressing, so an entry costs 12 bytes plus free space, instead of the 60 or so a {@link java.util.HashMap} entry costs.
+ * This is not thread safe.
+ */
+public class LongIntMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+    // FREE marks empty slots, so it is kept outside the arrays if it is used as a key
+    private boolean hasFreeKey = false;
+    private int freeValue;
+
+    /**
+     * Creates a map that can hold 16 entries before it grows.
+     */
+    public LongIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize How many entries the map can hold before it grows.
+     */
+    public LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @param key The key.
+     * @param missing What to return if there is no value for the key.
+     * @return The value for the key, or missing.
+     */
+    public int get(long key, int missing) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : missing;
+        }
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != FREE) {
+            if (current == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missing;
+    }
+
+    /**
+     * @param key The key.
+     * @return If the map has a value for the key.
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != FREE) {
+            if (current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a value, unless the key already has one.
+     * @param key The key.
+     * @param value The value.
+     * @return If the value was added.
+     */
+    public boolean putIfAbsent(long key, int value) {
+        if (key == FREE) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            freeValue = value;
+            size++;
+            return true;
+        }
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != FREE) {
+            if (current == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return How many entries are in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return If the map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry. The arrays are kept, so the map does not need to grow again.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * @return Roughly how many bytes the map's arrays take up.
+     */
+    public long getMemoryUsage() {
+        return (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == FREE) {
+                continue;
+            }
+            int slot = slot(key);
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+}
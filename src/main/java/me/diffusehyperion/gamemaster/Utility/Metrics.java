@@ -0,0 +1,334 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Counters, timers and histograms for what GameMaster does at runtime, cheap enough to leave on.
+ * <p>
+ * Recording is a few atomic adds, with no locking and no allocation. Keep the metric in a static field instead of looking it up by name every time.
+ * Metrics can be seen in game with /gamemaster stats, and can be dumped to a JSON file with {@link #startDumping(File, long)}.
+ */
+public class Metrics {
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = true;
+    private static BukkitTask dumpTask;
+
+    /**
+     * A number that only goes up, such as how many blocks were filled.
+     */
+    public static class Counter {
+        private final LongAdder value = new LongAdder();
+
+        /**
+         * Adds 1.
+         */
+        public void increment() {
+            add(1);
+        }
+
+        /**
+         * @param amount How much to add.
+         */
+        public void add(long amount) {
+            if (enabled) {
+                value.add(amount);
+            }
+        }
+
+        /**
+         * @return The current value.
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Records values into buckets that double in size, so percentiles can be estimated without keeping every value.
+     * Percentiles are accurate to within a factor of two.
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * @param value The value to record. Negative values are recorded as 0.
+         */
+        public void record(long value) {
+            if (!enabled) {
+                return;
+            }
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(v | 1));
+            count.increment();
+            sum.add(v);
+            long current;
+            while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+                // another thread raised the max first, try again
+            }
+        }
+
+        /**
+         * @return How many values were recorded.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return The total of every value recorded.
+         */
+        public long getSum() {
+            return sum.sum();
+        }
+
+        /**
+         * @return The largest value recorded.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @return The average value recorded.
+         */
+        public double getMean() {
+            long c = getCount();
+            return c == 0 ? 0 : (double) getSum() / c;
+        }
+
+        /**
+         * @param percentile The percentile, from 0 to 100.
+         * @return The upper bound of the bucket the percentile falls in.
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < 64; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(1, target)) {
+                    return Math.min(i == 63 ? Long.MAX_VALUE : (2L << i) - 1, getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+
+    /**
+     * A histogram of how long something took, in nanoseconds.
+     */
+    public static class Timer extends Histogram {
+        /**
+         * Returned by {@link #start()} while recording is off. System.nanoTime can be 0 or negative, so this is the one value it will not reach in practice.
+         */
+        public static final long NOT_STARTED = Long.MIN_VALUE;
+
+        /**
+         * @return The start time, to pass to {@link #stop(long)}.
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : NOT_STARTED;
+        }
+
+        /**
+         * Records the time since {@link #start()}.
+         * @param start What {@link #start()} returned.
+         */
+        public void stop(long start) {
+            if (enabled && start != NOT_STARTED) {
+                record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @param name The name of the counter. (Example: world.fill.blocks)
+     * @return The counter, created if it does not exist.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * @param name The name of the histogram.
+     * @return The histogram, created if it does not exist.
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * @param name The name of the timer. (Example: world.fill)
+     * @return The timer, created if it does not exist.
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /**
+     * Adds a value that is read when the metrics are shown, such as how many timers are running.
+     * @param name The name of the gauge.
+     * @param value Reads the value. This is called on the main thread.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Turns recording on or off. While off, recording does nothing.
+     * @param enabled If metrics should be recorded.
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return If metrics are being recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Every metric as readable lines, sorted by name. Times are in milliseconds.
+     */
+    public static List<String> format() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            lines.add(entry.getKey() + ": " + entry.getValue().get());
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            lines.add(entry.getKey() + ": " + entry.getValue().getAsLong());
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            lines.add(entry.getKey() + ": count " + h.getCount() + ", mean " + String.format(Locale.ROOT, "%.1f", h.getMean())
+                    + ", p50 " + h.getPercentile(50) + ", p99 " + h.getPercentile(99) + ", max " + h.getMax());
+        }
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            Timer t = entry.getValue();
+            lines.add(entry.getKey() + ": count " + t.getCount() + ", mean " + millis(t.getMean())
+                    + "ms, p50 " + millis(t.getPercentile(50)) + "ms, p99 " + millis(t.getPercentile(99)) + "ms, max " + millis(t.getMax()) + "ms");
+        }
+        return lines;
+    }
+
+    /**
+     * @return Every metric as a JSON object. Times are in nanoseconds.
+     */
+    public static String toJSON() {
+        StringBuilder json = new StringBuilder("{\"time\":").append(System.currentTimeMillis());
+        json.append(",\"counters\":{");
+        appendValues(json, counters, Counter::get);
+        json.append("},\"gauges\":{");
+        appendValues(json, gauges, LongSupplier::getAsLong);
+        json.append("},\"histograms\":{");
+        appendHistograms(json, histograms);
+        json.append("},\"timers\":{");
+        appendHistograms(json, timers);
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Writes {@link #toJSON()} to a file every so often, for dashboards to read. The file is replaced in one step, so it is never read half written.
+     * @param file The file to write to.
+     * @param periodTicks How often to write the file, in ticks.
+     */
+    public static synchronized void startDumping(File file, long periodTicks) {
+        stopDumping();
+        dumpTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            // gauges read main thread state, so the JSON is built here and only written in the background
+            String json = toJSON();
+            IOExecutor.get().execute(() -> {
+                try {
+                    file.getParentFile().mkdirs();
+                    FileIO.write(file.toPath(), json);
+                } catch (IOException e) {
+                    Bukkit.getLogger().warning("Could not write metrics to " + file + ": " + e.getMessage());
+                }
+            });
+        }, periodTicks, periodTicks);
+    }
+
+    /**
+     * Stops writing metrics to a file.
+     */
+    public static synchronized void stopDumping() {
+        if (dumpTask != null) {
+            dumpTask.cancel();
+            dumpTask = null;
+        }
+    }
+
+    private static String millis(double nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+
+    private interface ValueReader<T> {
+        long read(T metric);
+    }
+
+    private static <T> void appendValues(StringBuilder json, Map<String, T> metrics, ValueReader<T> reader) {
+        boolean first = true;
+        for (Map.Entry<String, T> entry : new TreeMap<>(metrics).entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendName(json, entry.getKey()).append(reader.read(entry.getValue()));
+        }
+    }
+
+    private static void appendHistograms(StringBuilder json, Map<String, ? extends Histogram> metrics) {
+        boolean first = true;
+        for (Map.Entry<String, ? extends Histogram> entry : new TreeMap<>(metrics).entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            Histogram h = entry.getValue();
+            appendName(json, entry.getKey())
+                    .append("{\"count\":").append(h.getCount())
+                    .append(",\"sum\":").append(h.getSum())
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", h.getMean()))
+                    .append(",\"p50\":").append(h.getPercentile(50))
+                    .append(",\"p90\":").append(h.getPercentile(90))
+                    .append(",\"p99\":").append(h.getPercentile(99))
+                    .append(",\"max\":").append(h.getMax())
+                    .append('}');
+        }
+    }
+
+    private static StringBuilder appendName(StringBuilder json, String name) {
+        return json.append('"').append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append("\":");
+    }
+}
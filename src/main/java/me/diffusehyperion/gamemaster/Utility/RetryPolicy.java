@@ -0,0 +1,59 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+/**
+ * How many times to retry something, and how long to wait between each try.
+ * <p>
+ * The delay starts at initialDelayMillis, and is multiplied by multiplier after every failed try.
+ */
+public class RetryPolicy {
+
+    /**
+     * 5 tries, starting with a 50ms delay and doubling each time.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, 50, 2);
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final double multiplier;
+
+    /**
+     * @param maxAttempts How many times to try in total. Must be at least 1.
+     * @param initialDelayMillis How long to wait after the first failed try.
+     * @param multiplier How much the delay grows after every failed try.
+     */
+    public RetryPolicy(int maxAttempts, long initialDelayMillis, double multiplier) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("There must be at least 1 attempt!");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.multiplier = multiplier;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt The try that just failed, starting from 1.
+     * @return How long to wait before the next try.
+     */
+    public long getDelayMillis(int attempt) {
+        return (long) (initialDelayMillis * Math.pow(multiplier, attempt - 1));
+    }
+
+    /**
+     * Waits before the next try.
+     * @param attempt The try that just failed, starting from 1.
+     * @return False if the thread was interrupted while waiting.
+     */
+    public boolean sleep(int attempt) {
+        try {
+            Thread.sleep(getDelayMillis(attempt));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
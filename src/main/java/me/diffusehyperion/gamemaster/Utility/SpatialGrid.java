@@ -0,0 +1,79 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of points on the X/Z plane that are all at least a minimum distance apart.
+ * <p>
+ * Points are bucketed into square cells as wide as the minimum distance, so checking a new point only has to look at the 9 cells around it.
+ * All methods are thread safe.
+ */
+public class SpatialGrid {
+
+    private final double minDistance;
+    private final double minDistanceSquared;
+    private final Map<Long, List<double[]>> cells = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * @param minDistance How far apart every point must be. Must be positive.
+     */
+    public SpatialGrid(double minDistance) {
+        if (minDistance <= 0) {
+            throw new IllegalArgumentException("The minimum distance must be positive!");
+        }
+        this.minDistance = minDistance;
+        this.minDistanceSquared = minDistance * minDistance;
+    }
+
+    /**
+     * Adds a point, if it is far enough from every other point and the grid is not full yet.
+     * @param x The X of the point.
+     * @param z The Z of the point.
+     * @param limit The most points the grid may hold.
+     * @return If the point was added.
+     */
+    public synchronized boolean tryAdd(double x, double z, int limit) {
+        if (size >= limit) {
+            return false;
+        }
+        long cellX = cell(x);
+        long cellZ = cell(z);
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dz = -1; dz <= 1; dz++) {
+                List<double[]> points = cells.get(key(cellX + dx, cellZ + dz));
+                if (points == null) {
+                    continue;
+                }
+                for (double[] point : points) {
+                    double distX = point[0] - x;
+                    double distZ = point[1] - z;
+                    if (distX * distX + distZ * distZ < minDistanceSquared) {
+                        return false;
+                    }
+                }
+            }
+        }
+        cells.computeIfAbsent(key(cellX, cellZ), k -> new ArrayList<>(2)).add(new double[]{x, z});
+        size++;
+        return true;
+    }
+
+    /**
+     * @return How many points are in the grid.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / minDistance);
+    }
+
+    private static long key(long cellX, long cellZ) {
+        return (cellX << 32) ^ (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,77 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import static me.diffusehyperion.gamemaster.GameMaster.plugin;
+
+/**
+ * Keeps track of how fast the server is ticking, by timing the gap between ticks.
+ * <p>
+ * The monitor starts itself the first time it is used.
+ */
+public class TickMonitor {
+
+    /**
+     * How long a tick should take when the server is keeping up, in milliseconds.
+     */
+    public static final double TARGET_MSPT = 50;
+
+    /**
+     * How much each new tick counts towards the average.
+     */
+    private static final double SMOOTHING = 0.05;
+
+    private static BukkitTask task;
+    private static long lastTick = 0;
+    private static double averageGapMillis = TARGET_MSPT;
+
+    /**
+     * Get the average time between ticks. 50ms means the server is keeping up.
+     * @return The smoothed gap between ticks, in milliseconds.
+     */
+    public static double getAverageTickMillis() {
+        ensureStarted();
+        return averageGapMillis;
+    }
+
+    /**
+     * Get the server's ticks per second, capped at 20.
+     * @return The smoothed ticks per second.
+     */
+    public static double getTPS() {
+        return Math.min(20, 1000 / getAverageTickMillis());
+    }
+
+    /**
+     * Check if the server is ticking at least this fast.
+     * @param minimumTPS The lowest acceptable ticks per second.
+     * @return If the server is healthy.
+     */
+    public static boolean isHealthy(double minimumTPS) {
+        return getTPS() >= minimumTPS;
+    }
+
+    /**
+     * Stops the monitor. It will start again the next time it is used.
+     */
+    public static synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static synchronized void ensureStarted() {
+        if (task != null || !plugin.isEnabled()) {
+            return;
+        }
+        lastTick = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            long now = System.nanoTime();
+            double gap = (now - lastTick) / 1_000_000D;
+            lastTick = now;
+            averageGapMillis += (gap - averageGapMillis) * SMOOTHING;
+        }, 1, 1);
+    }
+}
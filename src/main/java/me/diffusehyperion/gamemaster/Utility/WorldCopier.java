@@ -0,0 +1,209 @@
+package me.diffusehyperion.gamemaster.Utility;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copies a world folder file by file, in parallel on the {@link IOExecutor}.
+ * <p>
+ * Files are copied with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, which lets the OS copy without going through the heap.
+ * Region files can be hard linked instead of copied, where the filesystem allows it.
+ */
+public class WorldCopier {
+
+    /**
+     * Files that belong to one specific world, and must never be copied into another.
+     * uid.dat makes the server think the copy is the same world as the template.
+     */
+    public static final Set<String> SKIPPED_FILES = new HashSet<>(Arrays.asList("uid.dat", "session.lock"));
+
+    /**
+     * What a copy did.
+     */
+    public static class Result {
+        private final long files;
+        private final long bytes;
+        private final long linked;
+        private final long millis;
+
+        Result(long files, long bytes, long linked, long millis) {
+            this.files = files;
+            this.bytes = bytes;
+            this.linked = linked;
+            this.millis = millis;
+        }
+
+        /**
+         * @return How many files were copied or linked.
+         */
+        public long getFiles() {
+            return files;
+        }
+
+        /**
+         * @return How many bytes were actually copied. Linked files do not count.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return How many files were hard linked instead of copied.
+         */
+        public long getLinked() {
+            return linked;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    /**
+     * Copies a world folder.
+     * <p>
+     * Hard linked region files share their data with the template! Only link them if the copy will never save chunks, or the template will be changed too.
+     * @param source The template world's folder.
+     * @param target The new world's folder. It must not exist yet.
+     * @param linkRegions If region files should be hard linked instead of copied.
+     * @return A future which completes on a background thread once every file is copied. If the copy fails, the partly copied target is deleted first.
+     */
+    public static CompletableFuture<Result> copyAsync(Path source, Path target, boolean linkRegions) {
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<Result> copy = CompletableFuture.supplyAsync(() -> {
+            if (!Files.isDirectory(source)) {
+                throw new UncheckedIOException(new IOException(source + " is not a folder!"));
+            }
+            if (Files.exists(target)) {
+                throw new UncheckedIOException(new FileAlreadyExistsException(target.toString()));
+            }
+            try (Stream<Path> stream = Files.walk(source)) {
+                return stream.collect(Collectors.toList());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, IOExecutor.get()).thenCompose(paths -> {
+            started.set(true);
+            long start = System.currentTimeMillis();
+            AtomicLong bytes = new AtomicLong();
+            AtomicLong linked = new AtomicLong();
+            List<CompletableFuture<Void>> copies = new ArrayList<>();
+            try {
+                // folders are made up front, so the files can be copied in any order
+                for (Path path : paths) {
+                    if (Files.isDirectory(path)) {
+                        Files.createDirectories(target.resolve(source.relativize(path)));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (Path path : paths) {
+                if (Files.isDirectory(path) || SKIPPED_FILES.contains(path.getFileName().toString())) {
+                    continue;
+                }
+                Path destination = target.resolve(source.relativize(path));
+                copies.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        if (linkRegions && isRegionFile(path) && tryLink(path, destination)) {
+                            linked.incrementAndGet();
+                        } else {
+                            bytes.addAndGet(copyFile(path, destination));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, IOExecutor.get()));
+            }
+            return CompletableFuture.allOf(copies.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> new Result(copies.size(), bytes.get(), linked.get(), System.currentTimeMillis() - start));
+        });
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        copy.whenComplete((result, error) -> {
+            if (error == null) {
+                future.complete(result);
+            } else if (!started.get()) {
+                // nothing was made yet, and the target may belong to someone else
+                future.completeExceptionally(error);
+            } else {
+                // a half copied world would block the name until it is deleted by hand
+                IOExecutor.get().execute(() -> {
+                    try {
+                        FileUtils.deleteDirectory(target.toFile());
+                    } catch (IOException e) {
+                        error.addSuppressed(e);
+                    }
+                    future.completeExceptionally(error);
+                });
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Copies a world folder, waiting until it is done.
+     * @see #copyAsync(Path, Path, boolean)
+     * @param source The template world's folder.
+     * @param target The new world's folder. It must not exist yet.
+     * @param linkRegions If region files should be hard linked instead of copied.
+     * @return What the copy did.
+     */
+    public static Result copy(Path source, Path target, boolean linkRegions) throws IOException {
+        try {
+            return copyAsync(source, target, linkRegions).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copies one file through its channels.
+     * @return How many bytes were copied.
+     */
+    public static long copyFile(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+
+    private static boolean isRegionFile(Path path) {
+        return path.getFileName().toString().endsWith(".mca");
+    }
+
+    private static boolean tryLink(Path source, Path target) {
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // different drives, or the filesystem does not do hard links
+            return false;
+        }
+    }
+}